@@ -0,0 +1,161 @@
+package enigma;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Random;
+
+/** Configurations, machines and messages shared by the benchmarks.  All
+ *  generated data comes from fixed seeds, so that every run measures
+ *  the same work.
+ *  @author Karina Patel
+ */
+class BenchmarkData {
+
+    /** Number of characters converted by each invocation of benchmarks
+     *  that measure a single conversion. */
+    static final int BLOCK = 4096;
+
+    /** The alphabet of every benchmark configuration. */
+    static final Alphabet UPPER = new CharacterRange('A', 'Z');
+
+    /** The rotors of the standard configuration: name, type and cycles
+     *  of each. */
+    static final String[][] NAVAL = {
+        { "I", "MQ", "(AELTPHQXRU) (BKNW) (CMOY) (DFG) (IV) (JZ) (S)" },
+        { "II", "ME", "(FIXVYOMW) (CDKLHUP) (ESZ) (BJ) (GR) (NT) (A) (Q)" },
+        { "III", "MV", "(ABDHPEJT) (CFLVMZOYQIRWUKXSG) (N)" },
+        { "IV", "MJ", "(AEPLIYWCOXMRFZBSTGJQNH) (DV) (KU)" },
+        { "V", "MZ", "(AVOLDRWFIUQ) (BZKSMNHYC) (EGTJPX)" },
+        { "VI", "MZM", "(AJQDVLEOZWIYTS) (CGMNHFUX) (BPRK)" },
+        { "VII", "MZM", "(ANOUPFRIMBZTLWKSVEGCJYDHXQ)" },
+        { "VIII", "MZM", "(AFLSETWUNDHOZVICQ) (BKJ) (GXY) (MPR)" },
+        { "BETA", "N", "(ALBEVFCYODJWUGNMQTZSKPR) (HIX)" },
+        { "GAMMA", "N", "(AFNIRLBSQWVXGUZDKMTPCOYJHE)" },
+        { "B", "R", "(AE) (BN) (CK) (DQ) (FU) (GY) (HW) (IJ) (LO) (MP) "
+          + "(RX) (SZ) (TV)" },
+        { "C", "R", "(AR) (BD) (CO) (EJ) (FN) (GT) (HK) (IV) (LM) (PW) "
+          + "(QZ) (SX) (UY)" },
+    };
+
+    /** A settings line for the standard configuration. */
+    static final String SETTINGS =
+        "* B BETA III IV I AXLE (HQ) (EX) (IP) (TR) (BY)";
+
+    /** Return the text of the standard configuration followed by EXTRA
+     *  generated moving rotors. */
+    static String config(int extra) {
+        StringBuilder result = new StringBuilder("A-Z\n 5 3\n");
+        for (String[] rotor : NAVAL) {
+            result.append(String.format(" %s %s %s%n",
+                                        rotor[0], rotor[1], rotor[2]));
+        }
+        Random random = new Random(extra);
+        for (int k = 0; k < extra; k += 1) {
+            result.append(String.format(" G%d M%c %s%n", k,
+                                        (char) ('A' + random.nextInt(26)),
+                                        randomCycles(random)));
+        }
+        return result.toString();
+    }
+
+    /** Return a new file holding config(EXTRA), deleted on exit. */
+    static File configFile(int extra) throws IOException {
+        File result = File.createTempFile("enigma", ".conf");
+        result.deleteOnExit();
+        try (Writer out = new FileWriter(result)) {
+            out.write(config(extra));
+        }
+        return result;
+    }
+
+    /** Return a machine with the standard configuration, set up with
+     *  SETTINGS and its rotors compiled. */
+    static Machine machine() {
+        ArrayList<Rotor> rotors = new ArrayList<>();
+        for (String[] desc : NAVAL) {
+            Permutation perm = new Permutation(desc[2], UPPER);
+            switch (desc[1].charAt(0)) {
+            case 'R':
+                rotors.add(new Reflector(desc[0], perm));
+                break;
+            case 'N':
+                rotors.add(new FixedRotor(desc[0], perm));
+                break;
+            default:
+                rotors.add(new MovingRotor(desc[0], perm,
+                                           desc[1].substring(1)));
+                break;
+            }
+        }
+        Machine result = new Machine(UPPER, 5, 3, rotors);
+        result.compileRotors();
+        result.insertRotors(new String[] { "B", "BETA", "III", "IV", "I" });
+        result.setRotors("AXLE");
+        result.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)",
+                                            UPPER));
+        return result;
+    }
+
+    /** Return LENGTH random letters of UPPER, generated from SEED. */
+    static String message(int length, long seed) {
+        Random random = new Random(seed);
+        char[] result = new char[length];
+        for (int i = 0; i < length; i += 1) {
+            result[i] = UPPER.toChar(random.nextInt(UPPER.size()));
+        }
+        return new String(result);
+    }
+
+    /** Return BLOCK random indices into UPPER, generated from SEED. */
+    static int[] indices(long seed) {
+        Random random = new Random(seed);
+        int[] result = new int[BLOCK];
+        for (int i = 0; i < BLOCK; i += 1) {
+            result[i] = random.nextInt(UPPER.size());
+        }
+        return result;
+    }
+
+    /** Return input for Main holding about CHARS message characters, in
+     *  lines of LINE characters, with SETTINGS before every PERSETTING
+     *  lines. */
+    static String input(int chars, int line, int perSetting) {
+        StringBuilder result = new StringBuilder();
+        for (int n = 0; n * line < chars; n += 1) {
+            if (n % perSetting == 0) {
+                result.append(SETTINGS).append('\n');
+            }
+            result.append(message(line, n)).append('\n');
+        }
+        return result.toString();
+    }
+
+    /** Return the cycles of a random permutation of UPPER drawn from
+     *  RANDOM. */
+    private static String randomCycles(Random random) {
+        int n = UPPER.size();
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i += 1) {
+            int j = random.nextInt(i + 1);
+            perm[i] = perm[j];
+            perm[j] = i;
+        }
+        boolean[] seen = new boolean[n];
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < n; i += 1) {
+            if (!seen[i]) {
+                result.append('(');
+                for (int j = i; !seen[j]; j = perm[j]) {
+                    seen[j] = true;
+                    result.append(UPPER.toChar(j));
+                }
+                result.append(") ");
+            }
+        }
+        return result.toString().trim();
+    }
+
+}
@@ -0,0 +1,27 @@
+package enigma;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Counts the characters converted by a benchmark, so that JMH reports
+ *  throughput in characters per second whatever the amount of text in
+ *  each invocation.  (JMH requires this class to be public.)
+ *  @author Karina Patel
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class CharCounter {
+
+    /** Characters converted so far in the current iteration. */
+    public long chars;
+
+    /** Start counting a new iteration. */
+    @Setup(Level.Iteration)
+    public void reset() {
+        chars = 0;
+    }
+
+}
@@ -0,0 +1,113 @@
+package enigma;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Throughput of Machine.convert on single characters and on messages
+ *  of several lengths, and of MachineLanes.convert over many starting
+ *  positions, in characters per second.
+ *  @author Karina Patel
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MachineBenchmark {
+
+    /** A message to convert, and a machine to convert it with. */
+    @State(Scope.Thread)
+    public static class Message {
+
+        /** Length of the message. */
+        @Param({ "16", "1024", "65536", "1048576" })
+        public int length;
+
+        /** True iff the machine caches composite permutations. */
+        @Param({ "false", "true" })
+        public boolean composites;
+
+        /** Prepare the machine and message. */
+        @Setup
+        public void setUp() {
+            machine = BenchmarkData.machine();
+            machine.setCompositeCaching(composites);
+            text = BenchmarkData.message(length, length);
+        }
+
+        /** The machine. */
+        Machine machine;
+
+        /** The message. */
+        String text;
+    }
+
+    /** Prepare a machine and inputs for it. */
+    @Setup
+    public void setUp() {
+        _machine = BenchmarkData.machine();
+        _indices = BenchmarkData.indices(0);
+        _lanes = new MachineLanes(_machine, LANES);
+        _laneOutput = new int[LANES];
+    }
+
+    /** Convert a block of indices one at a time. */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BLOCK)
+    public int convertInt() {
+        int sum = 0;
+        for (int c : _indices) {
+            sum += _machine.convert(c);
+        }
+        return sum;
+    }
+
+    /** Convert a block of indices one at a time in each of LANES
+     *  lanes. */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BLOCK * LANES)
+    public int convertLanes() {
+        int sum = 0;
+        for (int c : _indices) {
+            _lanes.convert(c, _laneOutput);
+            sum += _laneOutput[c];
+        }
+        return sum;
+    }
+
+    /** Convert a whole message. */
+    @Benchmark
+    public String convertString(Message msg, CharCounter counter) {
+        counter.chars += msg.text.length();
+        return msg.machine.convert(msg.text);
+    }
+
+    /** Number of lanes converted by convertLanes. */
+    static final int LANES = 64;
+
+    /** The machine for convertInt. */
+    private Machine _machine;
+
+    /** Inputs for convertInt. */
+    private int[] _indices;
+
+    /** Lanes for convertLanes. */
+    private MachineLanes _lanes;
+
+    /** Output of _lanes. */
+    private int[] _laneOutput;
+
+}
@@ -0,0 +1,132 @@
+package enigma;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Time to load configurations, and end-to-end throughput of Main on
+ *  generated input, in characters per second.
+ *  @author Karina Patel
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MainBenchmark {
+
+    /** A configuration file. */
+    @State(Scope.Benchmark)
+    public static class Config {
+
+        /** Number of generated rotors added to the standard
+         *  configuration. */
+        @Param({ "0", "500" })
+        public int extraRotors;
+
+        /** Write the configuration file and load it. */
+        @Setup
+        public void setUp() throws IOException {
+            name = BenchmarkData.configFile(extraRotors).getPath();
+            translator = new Main(name);
+        }
+
+        /** Name of the configuration file. */
+        String name;
+
+        /** The configuration, loaded. */
+        Main translator;
+    }
+
+    /** Input for Main, in memory and in a file, and a file for its
+     *  output. */
+    @State(Scope.Benchmark)
+    public static class Input {
+
+        /** Number of message characters in the input. */
+        @Param({ "65536", "4194304" })
+        public int chars;
+
+        /** Number of message lines between settings lines. */
+        @Param({ "4", "1000" })
+        public int linesPerSetting;
+
+        /** Generate the input and create the files. */
+        @Setup
+        public void setUp() throws IOException {
+            text = BenchmarkData.input(chars, LINE, linesPerSetting);
+            File input = File.createTempFile("enigma", ".inp");
+            input.deleteOnExit();
+            try (Writer out = new FileWriter(input)) {
+                out.write(text);
+            }
+            inputName = input.getPath();
+            File output = File.createTempFile("enigma", ".out");
+            output.deleteOnExit();
+            outputName = output.getPath();
+        }
+
+        /** The input. */
+        String text;
+
+        /** Names of the input and output files. */
+        String inputName, outputName;
+    }
+
+    /** Read and parse the configuration without compiling any rotors,
+     *  which is the part of loadAndCompile that the configuration cache
+     *  saves. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Machine parse(Config config) {
+        return new Main(new String[] { config.name }).readConfig();
+    }
+
+    /** Read the configuration and compile all its rotors, as a Main
+     *  used through translate does before its first message. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Main loadAndCompile(Config config) {
+        return new Main(config.name);
+    }
+
+    /** Translate the input in memory with a loaded configuration. */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void translate(Config config, Input input, CharCounter counter) {
+        config.translator.translate(new StringReader(input.text),
+                                    Writer.nullWriter());
+        counter.chars += input.chars;
+    }
+
+    /** Run Main on the input and output files, as from the command
+     *  line, but without Main.main, which may exit. */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void process(Config config, Input input, CharCounter counter) {
+        new Main(new String[] { config.name, input.inputName,
+                                input.outputName }).process();
+        counter.chars += input.chars;
+    }
+
+    /** Length of the generated message lines. */
+    private static final int LINE = 100;
+
+}
@@ -0,0 +1,92 @@
+package enigma;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Throughput of Permutation.permute and Permutation.invert, in
+ *  characters per second.
+ *  @author Karina Patel
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PermutationBenchmark {
+
+    /** Prepare a permutation and inputs for it. */
+    @Setup
+    public void setUp() {
+        _perm = new Permutation(BenchmarkData.NAVAL[0][2],
+                                BenchmarkData.UPPER);
+        _indices = BenchmarkData.indices(0);
+        _chars = BenchmarkData.message(BenchmarkData.BLOCK, 0)
+            .toCharArray();
+    }
+
+    /** Permute a block of indices. */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BLOCK)
+    public int permuteInt() {
+        int sum = 0;
+        for (int p : _indices) {
+            sum += _perm.permute(p);
+        }
+        return sum;
+    }
+
+    /** Invert a block of indices. */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BLOCK)
+    public int invertInt() {
+        int sum = 0;
+        for (int c : _indices) {
+            sum += _perm.invert(c);
+        }
+        return sum;
+    }
+
+    /** Permute a block of characters. */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BLOCK)
+    public int permuteChar() {
+        int sum = 0;
+        for (char p : _chars) {
+            sum += _perm.permute(p);
+        }
+        return sum;
+    }
+
+    /** Invert a block of characters. */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BLOCK)
+    public int invertChar() {
+        int sum = 0;
+        for (char c : _chars) {
+            sum += _perm.invert(c);
+        }
+        return sum;
+    }
+
+    /** The permutation measured. */
+    private Permutation _perm;
+
+    /** Inputs as indices. */
+    private int[] _indices;
+
+    /** Inputs as characters. */
+    private char[] _chars;
+
+}
@@ -0,0 +1,77 @@
+package enigma;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Throughput of Rotor.convertForward and Rotor.convertBackward, with
+ *  and without compiled tables, in characters per second.
+ *  @author Karina Patel
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RotorBenchmark {
+
+    /** True iff the rotor's tables are compiled. */
+    @Param({ "false", "true" })
+    public boolean compiled;
+
+    /** Prepare a rotor and inputs for it. */
+    @Setup
+    public void setUp() {
+        String[] desc = BenchmarkData.NAVAL[0];
+        _rotor = new MovingRotor(desc[0],
+                                 new Permutation(desc[2],
+                                                 BenchmarkData.UPPER),
+                                 desc[1].substring(1));
+        if (compiled) {
+            _rotor.compile();
+        }
+        _rotor.set(7);
+        _indices = BenchmarkData.indices(0);
+    }
+
+    /** Convert a block of indices forward. */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BLOCK)
+    public int convertForward() {
+        int sum = 0;
+        for (int p : _indices) {
+            sum += _rotor.convertForward(p);
+        }
+        return sum;
+    }
+
+    /** Convert a block of indices backward. */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.BLOCK)
+    public int convertBackward() {
+        int sum = 0;
+        for (int e : _indices) {
+            sum += _rotor.convertBackward(e);
+        }
+        return sum;
+    }
+
+    /** The rotor measured. */
+    private Rotor _rotor;
+
+    /** Inputs as indices. */
+    private int[] _indices;
+
+}
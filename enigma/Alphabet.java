@@ -6,6 +6,17 @@ package enigma;
  */
 abstract class Alphabet {
 
+    /** Returns an alphabet consisting of CHARACTERS, in
+     *  order: a CharacterRange if they are a run of consecutive
+     *  characters, and otherwise a CharacterConfiguration. */
+    static Alphabet of(String characters) {
+        if (CharacterConfiguration.isRange(characters)) {
+            return new CharacterRange(characters.charAt(0),
+                    characters.charAt(characters.length() - 1));
+        }
+        return new CharacterConfiguration(characters);
+    }
+
     /** Returns the size of the alphabet. */
     abstract int size();
 
@@ -20,4 +31,18 @@ abstract class Alphabet {
      *  the alphabet. This is the inverse of toChar(). */
     abstract int toInt(char ch);
 
+    /** Returns true iff every character in the alphabet is ASCII, so
+     *  that each can be stored in a single byte. */
+    boolean isAscii() {
+        for (int i = 0; i < size(); i += 1) {
+            if (toChar(i) >= ASCII_LIMIT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Characters below this are ASCII. */
+    static final int ASCII_LIMIT = 128;
+
 }
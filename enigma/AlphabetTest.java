@@ -0,0 +1,92 @@
+package enigma;
+
+import java.util.ArrayList;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+/** The suite of all JUnit tests for the Alphabet classes.
+ *  @author Karina Patel
+ */
+public class AlphabetTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /** Check that ALPHA holds exactly the characters of CHARS, in
+     *  order. */
+    private void checkAlphabet(Alphabet alpha, String chars) {
+        assertEquals(chars.length(), alpha.size());
+        for (int i = 0; i < chars.length(); i += 1) {
+            char c = chars.charAt(i);
+            assertTrue(alpha.contains(c));
+            assertEquals(i, alpha.toInt(c));
+            assertEquals(c, alpha.toChar(i));
+        }
+    }
+
+    @Test
+    public void testRange() {
+        Alphabet alpha = Alphabet.of("abcdef");
+        assertTrue(alpha instanceof CharacterRange);
+        checkAlphabet(alpha, "ABCDEF");
+        assertFalse(alpha.contains('G'));
+        assertTrue(alpha.isAscii());
+    }
+
+    @Test
+    public void testNonRange() {
+        Alphabet alpha = Alphabet.of("QWERTYUIOPASDFGHJKLZXCVBNM");
+        assertTrue(alpha instanceof CharacterConfiguration);
+        checkAlphabet(alpha, "QWERTYUIOPASDFGHJKLZXCVBNM");
+        assertFalse(alpha.contains('1'));
+        assertFalse(alpha.contains('\u00C4'));
+        assertTrue(alpha.isAscii());
+    }
+
+    @Test
+    public void testNonAscii() {
+        String chars = "\u00C4\u00D6\u00DC\u03A9AZ";
+        Alphabet alpha = Alphabet.of("\u00E4\u00F6\u00FC\u03C9az");
+        assertTrue(alpha instanceof CharacterConfiguration);
+        checkAlphabet(alpha, chars);
+        assertFalse(alpha.contains('B'));
+        assertFalse(alpha.contains('\uFFFF'));
+        assertFalse(alpha.isAscii());
+
+        Alphabet greek = Alphabet.of("\u0391\u0392\u0393\u0394");
+        assertTrue(greek instanceof CharacterRange);
+        checkAlphabet(greek, "\u0391\u0392\u0393\u0394");
+        assertFalse(greek.isAscii());
+    }
+
+    @Test
+    public void testNonAsciiMachine() {
+        Alphabet alpha = Alphabet.of("\u00C4\u00D6\u00DC\u03A9AZ");
+        ArrayList<Rotor> rotors = new ArrayList<>();
+        rotors.add(new Reflector("R", new Permutation(
+            "(\u00C4Z) (\u00D6\u03A9) (\u00DCA)", alpha)));
+        rotors.add(new MovingRotor("M", new Permutation(
+            "(\u00C4\u00D6\u00DC) (\u03A9AZ)", alpha), "A"));
+        Machine machine = new Machine(alpha, 2, 1, rotors);
+        machine.insertRotors(new String[] {"R", "M"});
+        machine.setRotors("\u00C4");
+        String msg = "\u00C4\u00C4\u03A9AZ\u00DC";
+        String cipher = machine.convert(msg);
+        machine.setRotors("\u00C4");
+        assertEquals(msg, machine.convert(cipher));
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testDuplicate() {
+        Alphabet.of("ABCA");
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testOutOfRange() {
+        Alphabet.of("QWERTY").toInt('Z');
+    }
+
+}
@@ -0,0 +1,314 @@
+package enigma;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import static enigma.EnigmaException.*;
+
+/** Finds the rotors and initial positions under which a crib could
+ *  encipher as the start of a ciphertext with some unknown plugboard,
+ *  in the manner of Turing's bombe.
+ *
+ *  The crib and ciphertext form a menu: a graph on the alphabet with an
+ *  edge from P to C, labeled K, for each crib character P enciphered as
+ *  C at offset K.  If the plugboard S takes P to X, and E(K) is the
+ *  permutation performed by the rotors and reflector at offset K, then
+ *  S takes C to E(K)(X).  At each position, the bombe assumes in turn
+ *  that the most connected letter T of the menu is plugged to each X,
+ *  and follows the consequences along the menu and the symmetry of the
+ *  plugboard (the diagonal board), recording for each letter a long
+ *  whose bits are the partners it is forced to have.  An assumption is
+ *  rejected as soon as some letter is forced to have two partners; one
+ *  that survives is a stop, reported with the plugboard pairs it
+ *  implies.  Stops are candidates that may still be false, to be
+ *  checked by decrypting.
+ *
+ *  Each rotor order is a separate task on a fork/join pool.  The
+ *  permutations E(K) for each position are computed in one pass with
+ *  Machine.scramblers, so that following a consequence costs an array
+ *  access and a few bit operations.  No ring settings are tried: every
+ *  stop has all its rings at 0.
+ *  @author Karina Patel
+ */
+class Bombe {
+
+    /** Largest alphabet the bombe handles: the size of a long. */
+    static final int MAX_ALPHABET = Long.SIZE;
+
+    /** A bombe for the rotors of BASE, whose tasks run on POOL. */
+    Bombe(Machine base, ForkJoinPool pool) {
+        if (base.alphabet().size() > MAX_ALPHABET) {
+            throw error("bombe needs an alphabet of at most %d characters",
+                        MAX_ALPHABET);
+        }
+        _base = base;
+        _pool = pool;
+        _alphabet = base.alphabet();
+        _orders = KeySearch.rotorOrders(base);
+    }
+
+    /** A bombe for the rotors of BASE using the common pool. */
+    Bombe(Machine base) {
+        this(base, ForkJoinPool.commonPool());
+    }
+
+    /** Return the number of rotor orders I try. */
+    int numOrders() {
+        return _orders.size();
+    }
+
+    /** Return the stops for CRIB as the start of CIPHERTEXT, ordered by
+     *  rotor order, then by initial positions.  Each gives the plugboard
+     *  pairs implied by the menu. */
+    List<KeySearch.Match> run(String ciphertext, String crib) {
+        if (crib.length() == 0 || crib.length() > ciphertext.length()) {
+            throw error("crib must be nonempty and no longer than "
+                        + "the ciphertext");
+        }
+        int n = _alphabet.size();
+        int len = crib.length();
+        int[] degree = new int[n + 1];
+        int[] from = new int[2 * len], to = new int[2 * len];
+        for (int k = 0; k < len; k += 1) {
+            int p = _alphabet.toInt(crib.charAt(k));
+            int c = _alphabet.toInt(ciphertext.charAt(k));
+            if (p == c) {
+                throw error("crib letter %c enciphers as itself at %d",
+                            crib.charAt(k), k);
+            }
+            from[2 * k] = to[2 * k + 1] = p;
+            from[2 * k + 1] = to[2 * k] = c;
+            degree[p + 1] += 1;
+            degree[c + 1] += 1;
+        }
+        _test = 0;
+        for (int a = 0; a < n; a += 1) {
+            if (degree[a + 1] > degree[_test + 1]) {
+                _test = a;
+            }
+        }
+        for (int a = 0; a < n; a += 1) {
+            degree[a + 1] += degree[a];
+        }
+        _edgeStart = degree.clone();
+        _edgeTo = new int[2 * len];
+        _edgeOffset = new int[2 * len];
+        int[] next = degree;
+        for (int e = 0; e < 2 * len; e += 1) {
+            int slot = next[from[e]];
+            next[from[e]] += 1;
+            _edgeTo[slot] = to[e];
+            _edgeOffset[slot] = e / 2;
+        }
+        _length = len;
+
+        ConcurrentLinkedQueue<KeySearch.Match> found =
+            new ConcurrentLinkedQueue<>();
+        LongAdder tried = new LongAdder();
+        long start = System.nanoTime();
+        if (!_orders.isEmpty()) {
+            _pool.invoke(new Task(found, tried, 0, _orders.size()));
+        }
+        _elapsed = System.nanoTime() - start;
+        _positions = tried.sum();
+        ArrayList<KeySearch.Match> result = new ArrayList<>(found);
+        Collections.sort(result);
+        return result;
+    }
+
+    /** Return the number of positions tested by the last run. */
+    long positions() {
+        return _positions;
+    }
+
+    /** Return the time taken by the last run, in nanoseconds. */
+    long elapsedNanos() {
+        return _elapsed;
+    }
+
+    /** Return the number of positions tested per second by the last
+     *  run. */
+    double positionsPerSecond() {
+        return _elapsed == 0 ? 0 : _positions * 1e9 / _elapsed;
+    }
+
+    /** The task of testing every position of a range of rotor orders. */
+    private class Task extends RecursiveAction {
+
+        /** Test the positions of rotor orders LO .. HI-1, recording
+         *  stops in FOUND and counting positions in TRIED. */
+        Task(ConcurrentLinkedQueue<KeySearch.Match> found, LongAdder tried,
+             int lo, int hi) {
+            _found = found;
+            _tried = tried;
+            _lo = lo;
+            _hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (_hi - _lo > 1) {
+                int mid = _lo + (_hi - _lo) / 2;
+                invokeAll(new Task(_found, _tried, _lo, mid),
+                          new Task(_found, _tried, mid, _hi));
+                return;
+            }
+            int n = _alphabet.size();
+            Machine m = _base.fork();
+            m.setCompositeCaching(false);
+            m.insertRotors(_orders.get(_lo));
+            int last = m.numRotors() - 1;
+            int[] settings = new int[last + 1];
+            int[][] scramblers = new int[_length][n];
+            _live = new long[n];
+            _stack = new int[n];
+            long count = 0;
+            while (true) {
+                m.restore(settings);
+                m.scramblers(scramblers);
+                for (int x = 0; x < n; x += 1) {
+                    if (consistent(scramblers, x)) {
+                        _found.add(stop(settings));
+                    }
+                }
+                count += 1;
+                int j = last;
+                while (j >= 1 && settings[j] == n - 1) {
+                    settings[j] = 0;
+                    j -= 1;
+                }
+                if (j < 1) {
+                    break;
+                }
+                settings[j] += 1;
+            }
+            _tried.add(count);
+        }
+
+        /** Return true iff assuming that the test letter is plugged to X
+         *  forces no letter to have two partners, when offset K of the
+         *  menu is enciphered by SCRAMBLERS[K].  Leaves the partners
+         *  forced in _live. */
+        private boolean consistent(int[][] scramblers, int x) {
+            Arrays.fill(_live, 0L);
+            _top = 0;
+            if (!plug(_test, x)) {
+                return false;
+            }
+            while (_top > 0) {
+                _top -= 1;
+                int a = _stack[_top] >>> Short.SIZE;
+                int v = _stack[_top] & SHORT_MASK;
+                for (int e = _edgeStart[a]; e < _edgeStart[a + 1]; e += 1) {
+                    if (!plug(_edgeTo[e], scramblers[_edgeOffset[e]][v])) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /** Record that A and V are plugged together, returning false if
+         *  either already has a different partner. */
+        private boolean plug(int a, int v) {
+            return wire(a, v) && wire(v, a);
+        }
+
+        /** Record that V is the partner of A, scheduling the consequences
+         *  to be followed if it is new.  Returns false if A already has a
+         *  different partner. */
+        private boolean wire(int a, int v) {
+            long bit = 1L << v;
+            if (_live[a] == bit) {
+                return true;
+            } else if (_live[a] != 0) {
+                return false;
+            }
+            _live[a] = bit;
+            _stack[_top] = (a << Short.SIZE) | v;
+            _top += 1;
+            return true;
+        }
+
+        /** Return the stop at SETTINGS for the partners in _live. */
+        private KeySearch.Match stop(int[] settings) {
+            char[] positions = new char[settings.length - 1];
+            for (int i = 1; i < settings.length; i += 1) {
+                positions[i - 1] = _alphabet.toChar(settings[i]);
+            }
+            StringBuilder plugboard = new StringBuilder();
+            for (int a = 0; a < _live.length; a += 1) {
+                int v = Long.numberOfTrailingZeros(_live[a]);
+                if (_live[a] != 0 && a < v) {
+                    if (plugboard.length() > 0) {
+                        plugboard.append(' ');
+                    }
+                    plugboard.append('(').append(_alphabet.toChar(a))
+                        .append(_alphabet.toChar(v)).append(')');
+                }
+            }
+            return new KeySearch.Match(_lo, _orders.get(_lo),
+                                       new String(positions),
+                                       plugboard.toString());
+        }
+
+        /** Stops found. */
+        private final ConcurrentLinkedQueue<KeySearch.Match> _found;
+
+        /** Number of positions tested. */
+        private final LongAdder _tried;
+
+        /** Bounds of my range of rotor orders. */
+        private final int _lo, _hi;
+
+        /** The partners forced on each letter, as bit sets. */
+        private long[] _live;
+
+        /** Partnerships whose consequences have yet to be followed, each
+         *  encoded as the letter shifted left by 16 bits plus its
+         *  partner. */
+        private int[] _stack;
+
+        /** Number of entries in _stack. */
+        private int _top;
+    }
+
+    /** Mask for the low 16 bits of an int. */
+    private static final int SHORT_MASK = (1 << Short.SIZE) - 1;
+
+    /** The machine whose rotors I use. */
+    private final Machine _base;
+
+    /** Pool on which tasks run. */
+    private final ForkJoinPool _pool;
+
+    /** The alphabet of _base. */
+    private final Alphabet _alphabet;
+
+    /** The rotor orders tried. */
+    private final List<String[]> _orders;
+
+    /** The menu of the current run, with edges grouped by letter: the
+     *  edges from letter A are _edgeStart[A] .. _edgeStart[A+1]-1, and
+     *  edge E leads to letter _edgeTo[E] at offset _edgeOffset[E]. */
+    private int[] _edgeStart, _edgeTo, _edgeOffset;
+
+    /** Length of the crib of the current run. */
+    private int _length;
+
+    /** The test letter of the current run. */
+    private int _test;
+
+    /** Number of positions tested by the last run. */
+    private long _positions;
+
+    /** Time taken by the last run, in nanoseconds. */
+    private long _elapsed;
+
+}
@@ -0,0 +1,53 @@
+package enigma;
+
+import java.util.ArrayList;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+import static enigma.TestUtils.*;
+
+/** The suite of all JUnit tests for the Bombe class.
+ *  @author Karina Patel
+ */
+public class BombeTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    @Test
+    public void testRun() {
+        Machine machine = machine(3, 2, new String[] {"B", "IV", "II"},
+                                  "KD", "(AM) (FI) (NV) (PS) (TU)");
+        String crib = "WETTERVORHERSAGEBISKAYA";
+        String ciphertext = machine.convert(crib);
+        Bombe bombe = new Bombe(new Machine(UPPER, 3, 2, R));
+        ArrayList<String> stops = new ArrayList<>();
+        for (KeySearch.Match stop : bombe.run(ciphertext, crib)) {
+            stops.add(stop.rotors()[1] + stop.rotors()[2]
+                      + stop.positions());
+            if (stop.positions().equals("KD")
+                && stop.rotors()[1].equals("IV")) {
+                assertTrue(stop.plugboard().contains("(AM)"));
+            }
+        }
+        assertTrue(stops.contains("IVIIKD"));
+        assertEquals(12 * 26 * 26, bombe.positions());
+    }
+
+    @Test
+    public void testNoRotorOrders() {
+        Bombe bombe = new Bombe(noRotorOrders());
+        assertEquals(0, bombe.numOrders());
+        assertTrue(bombe.run("ABCDE", "BCD").isEmpty());
+        assertEquals(0, bombe.positions());
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testSelfEncipherment() {
+        new Bombe(new Machine(UPPER, 3, 2, R)).run("ABCDE", "XBZ");
+    }
+
+}
@@ -1,6 +1,6 @@
 package enigma;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 import static enigma.EnigmaException.*;
 
@@ -21,54 +21,75 @@ class CharacterConfiguration extends Alphabet {
             throw error("Empty set of characters");
         }
 
-        _charToInt = new HashMap<>();
-        _intToChar = new HashMap<>();
+        _intToChar = characters.toUpperCase().toCharArray();
+        if (_intToChar.length != characters.length()) {
+            throw error("Characters change length when upper-cased.");
+        }
+
+        char max = 0;
+        for (char c : _intToChar) {
+            max = (char) Math.max(max, c);
+        }
+        _charToInt = new int[max + 1];
+        Arrays.fill(_charToInt, -1);
 
-        for (int i = 0; i < characters.length(); i++) {
-            if (_charToInt.containsKey(Character.
-                    toUpperCase(characters.charAt(i)))) {
+        for (int i = 0; i < _intToChar.length; i++) {
+            if (_charToInt[_intToChar[i]] >= 0) {
                 throw error("Duplicate value in characters string.");
             }
+            _charToInt[_intToChar[i]] = i;
+        }
+    }
 
-            _charToInt.put(Character.toUpperCase(characters.charAt(i)), i);
-            _intToChar.put(i, Character.toUpperCase(characters.charAt(i)));
+    /** Return true iff CHARACTERS, upper-cased, is a run of consecutive
+     *  characters in increasing order, so that a CharacterRange can
+     *  stand in for the corresponding CharacterConfiguration. */
+    static boolean isRange(String characters) {
+        String upper = characters.toUpperCase();
+        if (upper.length() != characters.length()) {
+            return false;
+        }
+        for (int i = 1; i < upper.length(); i++) {
+            if (upper.charAt(i) != upper.charAt(i - 1) + 1) {
+                return false;
+            }
         }
+        return true;
     }
 
     @Override
     int size() {
-        return _charToInt.size();
+        return _intToChar.length;
     }
 
     @Override
     boolean contains(char ch) {
-        return _charToInt.containsKey(ch);
+        return ch < _charToInt.length && _charToInt[ch] >= 0;
     }
 
     @Override
     char toChar(int index) {
-        Character result = _intToChar.get(index);
-        if (result == null) {
+        if (index < 0 || index >= _intToChar.length) {
             throw error("Character index out of range");
         }
 
-        return result;
+        return _intToChar[index];
     }
 
     @Override
     int toInt(char ch) {
-        Integer result = _charToInt.get(ch);
-        if (result == null) {
+        if (!contains(ch)) {
             throw error("Character out of range");
         }
 
-        return result;
+        return _charToInt[ch];
     }
 
-    /** Bimap of characters in this Alphabet. */
-    private HashMap<Character, Integer> _charToInt;
+    /** Index of each character in this Alphabet, indexed by character,
+     *  with -1 for characters not in it. */
+    private int[] _charToInt;
 
-    /** Bimap of characters in this Alphabet. */
-    private HashMap<Integer, Character> _intToChar;
+    /** Characters of this Alphabet, indexed by position. */
+    private char[] _intToChar;
 
 }
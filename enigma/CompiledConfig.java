@@ -0,0 +1,185 @@
+package enigma;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static enigma.EnigmaException.*;
+
+/** Reads and writes machines in a compiled binary form, so that a large
+ *  configuration need only be parsed once.  A compiled file records the
+ *  SHA-256 digest of the configuration it came from, and is used only
+ *  while that digest still matches.
+ *
+ *  The file holds, in order: MAGIC, VERSION, the digest, the characters
+ *  of the alphabet, the number of rotor slots and pawls, and the number
+ *  of rotors; then for each rotor its name, its kind ('R', 'N' or 'M'),
+ *  the index its permutation maps each index to, and its notches.
+ *  @author Karina Patel
+ */
+class CompiledConfig {
+
+    /** Suffix added to a configuration's name to get its compiled form. */
+    static final String SUFFIX = ".cache";
+
+    /** Marks a compiled configuration file. */
+    static final int MAGIC = 0x456e6967;
+
+    /** Version of the file format. */
+    static final int VERSION = 1;
+
+    /** Source of the suffixes of temporary files. */
+    private static final SecureRandom TEMP_NAMES = new SecureRandom();
+
+    /** Return the SHA-256 digest of the contents of the file CONFIG. */
+    static byte[] digest(String config) {
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                .digest(Files.readAllBytes(Paths.get(config)));
+        } catch (IOException excp) {
+            throw error("could not open %s", config);
+        } catch (NoSuchAlgorithmException excp) {
+            throw error("SHA-256 is not available");
+        }
+    }
+
+    /** Return the machine stored in the compiled file CACHE, or null if
+     *  there is no such file, it cannot be read, or it was not compiled
+     *  from a configuration with the given DIGEST. */
+    static Machine read(String cache, byte[] digest) {
+        if (!Files.isRegularFile(Paths.get(cache))) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                 new BufferedInputStream(new FileInputStream(cache)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            byte[] stored = new byte[in.readUnsignedShort()];
+            in.readFully(stored);
+            if (!Arrays.equals(stored, digest)) {
+                return null;
+            }
+            Alphabet alphabet = Alphabet.of(in.readUTF());
+            int numRotors = in.readInt();
+            int pawls = in.readInt();
+            int count = in.readInt();
+            ArrayList<Rotor> allRotors = new ArrayList<>();
+            for (int k = 0; k < count; k += 1) {
+                allRotors.add(readRotor(in, alphabet));
+            }
+            return new Machine(alphabet, numRotors, pawls, allRotors);
+        } catch (IOException | EnigmaException excp) {
+            return null;
+        }
+    }
+
+    /** Write MACHINE to the compiled file CACHE, recording that it was
+     *  compiled from a configuration with the given DIGEST.  The file is
+     *  written under a temporary name in the same directory and then
+     *  moved into place, so that no reader sees it half written.
+     *  Failure to write is ignored, since the configuration can always
+     *  be parsed again. */
+    static void write(String cache, byte[] digest, Machine machine) {
+        Path target = Paths.get(cache).toAbsolutePath();
+        Path temp = null;
+        try {
+            temp = tempSibling(target);
+            try (DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(
+                         Files.newOutputStream(temp,
+                             StandardOpenOption.CREATE_NEW,
+                             StandardOpenOption.WRITE)))) {
+                writeMachine(out, digest, machine);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+                       StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException excp) {
+            if (temp != null) {
+                temp.toFile().delete();
+            }
+        }
+    }
+
+    /** Return a new name in the directory of TARGET under which to
+     *  write its contents before moving them into place.  Unlike
+     *  Files.createTempFile, which makes a file readable only by its
+     *  owner, this leaves the permissions of the file created under the
+     *  name to the umask, as for any other output file. */
+    static Path tempSibling(Path target) {
+        return target.resolveSibling(
+            String.format("%s.%x.tmp", target.getFileName(),
+                          TEMP_NAMES.nextLong() & Long.MAX_VALUE));
+    }
+
+    /** Write MACHINE, compiled from a configuration with the given
+     *  DIGEST, to OUT. */
+    private static void writeMachine(DataOutputStream out, byte[] digest,
+                                     Machine machine) throws IOException {
+        Alphabet alphabet = machine.alphabet();
+        StringBuilder chars = new StringBuilder();
+        for (int i = 0; i < alphabet.size(); i += 1) {
+            chars.append(alphabet.toChar(i));
+        }
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeShort(digest.length);
+        out.write(digest);
+        out.writeUTF(chars.toString());
+        out.writeInt(machine.numRotors());
+        out.writeInt(machine.numPawls());
+        out.writeInt(machine.allRotors().size());
+        for (Rotor r : machine.allRotors()) {
+            writeRotor(out, r);
+        }
+    }
+
+    /** Return the rotor read from IN, whose alphabet is ALPHABET. */
+    private static Rotor readRotor(DataInputStream in, Alphabet alphabet)
+        throws IOException {
+        String name = in.readUTF();
+        char kind = in.readChar();
+        int[] mapping = new int[alphabet.size()];
+        for (int i = 0; i < mapping.length; i += 1) {
+            mapping[i] = in.readInt();
+        }
+        String notches = in.readUTF();
+        Permutation perm = new Permutation(mapping, alphabet);
+        switch (kind) {
+        case 'R':
+            return new Reflector(name, perm);
+        case 'N':
+            return new FixedRotor(name, perm);
+        case 'M':
+            return new MovingRotor(name, perm, notches);
+        default:
+            throw error("unknown rotor kind in compiled configuration");
+        }
+    }
+
+    /** Write R to OUT. */
+    private static void writeRotor(DataOutputStream out, Rotor r)
+        throws IOException {
+        out.writeUTF(r.name());
+        out.writeChar(r.reflecting() ? 'R' : r.rotates() ? 'M' : 'N');
+        Permutation perm = r.permutation();
+        for (int i = 0; i < perm.size(); i += 1) {
+            out.writeInt(perm.permute(i));
+        }
+        out.writeUTF(r.notches());
+    }
+
+}
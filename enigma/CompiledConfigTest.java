@@ -0,0 +1,114 @@
+package enigma;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Set;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+import static enigma.TestUtils.*;
+
+/** The suite of all JUnit tests for the CompiledConfig class.
+ *  @author Karina Patel
+ */
+public class CompiledConfigTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /* ***** TESTING UTILITIES ***** */
+
+    /** Return the compiled file for the configuration file CONFIG, to be
+     *  deleted on exit. */
+    private File cacheFor(File config) {
+        File result = new File(config.getPath() + CompiledConfig.SUFFIX);
+        result.deleteOnExit();
+        return result;
+    }
+
+    /** Return the output of Main with --config-cache on CONFIG and the
+     *  input INPUT. */
+    private String translate(File config, String input) throws IOException {
+        File in = tempFile(input), out = tempFile("");
+        new Main(new String[] {"--config-cache", config.getPath(),
+                               in.getPath(), out.getPath()}).process();
+        return new String(Files.readAllBytes(out.toPath()));
+    }
+
+    /* ***** TESTS ***** */
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        File config = tempFile(CONFIG);
+        File cache = cacheFor(config);
+        byte[] digest = CompiledConfig.digest(config.getPath());
+        Machine original = new Machine(UPPER, 5, 3, R);
+        CompiledConfig.write(cache.getPath(), digest, original);
+        assertTrue(cache.isFile());
+        Machine copy = CompiledConfig.read(cache.getPath(), digest);
+        assertNotNull(copy);
+        assertEquals(5, copy.numRotors());
+        assertEquals(3, copy.numPawls());
+        assertEquals(R.size(), copy.allRotors().size());
+        String[] rotors = {"B", "BETA", "III", "IV", "I"};
+        for (Machine M : new Machine[] {original, copy}) {
+            M.insertRotors(rotors);
+            M.setRotors("AXLE");
+            M.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)",
+                                           UPPER));
+        }
+        String msg = "FROMHISSHOULDERHIAWATHATOOKTHECAMERAOFROSEWOOD";
+        assertEquals(original.convert(msg), copy.convert(msg));
+    }
+
+    @Test
+    public void testStaleDigest() throws IOException {
+        File config = tempFile(CONFIG);
+        File cache = cacheFor(config);
+        String input = "* B BETA I II III AAAA (AQ) (EP)\nHello world\n";
+        assertEquals("IHBDQ QMTQZ" + System.lineSeparator(),
+                     translate(config, input));
+        assertTrue(cache.isFile());
+        byte[] digest = CompiledConfig.digest(config.getPath());
+        assertNotNull(CompiledConfig.read(cache.getPath(), digest));
+
+        Files.write(config.toPath(),
+                    CONFIG.replace("B R ", "Q R ").getBytes());
+        byte[] changed = CompiledConfig.digest(config.getPath());
+        assertNull(CompiledConfig.read(cache.getPath(), changed));
+        try {
+            translate(config, input);
+            fail("stale compiled configuration used");
+        } catch (EnigmaException excp) {
+            assertEquals("rotor B not found", excp.getMessage());
+        }
+        assertNotNull(CompiledConfig.read(cache.getPath(), changed));
+    }
+
+    @Test
+    public void testPermissions() throws IOException {
+        File config = tempFile(CONFIG);
+        File cache = cacheFor(config);
+        Path plain = config.toPath().resolveSibling(cache.getName() + "x");
+        plain.toFile().deleteOnExit();
+        Files.createFile(plain);
+        CompiledConfig.write(cache.getPath(),
+                             CompiledConfig.digest(config.getPath()),
+                             new Machine(UPPER, 5, 3, R));
+        try {
+            Set<PosixFilePermission> expected =
+                Files.getPosixFilePermissions(plain);
+            assertEquals(expected,
+                         Files.getPosixFilePermissions(cache.toPath()));
+        } catch (UnsupportedOperationException excp) {
+            return;
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package enigma;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import static enigma.EnigmaException.*;
+
+/** A writer that prints message lines in groups of five characters
+ *  separated by blanks (except that the last group may have fewer).
+ *  Output is collected in a large buffer and written in big blocks.
+ *  Since the position within the current group is remembered between
+ *  calls, a line may be written in several pieces.
+ *  @author Karina Patel
+ */
+class GroupWriter {
+
+    /** Number of characters in a group. */
+    static final int GROUP_SIZE = 5;
+
+    /** Size of the output buffer. */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    /** A writer sending its output to OUT. */
+    GroupWriter(Writer out) {
+        this(out, BUFFER_SIZE);
+    }
+
+    /** A writer sending its output to OUT through a buffer of
+     *  BUFFERSIZE characters. */
+    GroupWriter(Writer out, int bufferSize) {
+        _out = out;
+        _buffer = new char[bufferSize];
+    }
+
+    /** Write the LEN characters of MSG starting at OFF as the
+     *  continuation of the current line. */
+    void write(char[] msg, int off, int len) {
+        for (int i = off; i < off + len; i += 1) {
+            if (_column > 0 && _column % GROUP_SIZE == 0) {
+                put(' ');
+            }
+            put(msg[i]);
+            _column += 1;
+        }
+    }
+
+    /** End the current line. */
+    void newLine() {
+        for (int i = 0; i < NEWLINE.length(); i += 1) {
+            put(NEWLINE.charAt(i));
+        }
+        _column = 0;
+    }
+
+    /** Write the LEN characters of TEXT starting at OFF exactly as they
+     *  are, without grouping.  TEXT should consist of whole lines. */
+    void writeUngrouped(char[] text, int off, int len) {
+        while (len > 0) {
+            if (_length == _buffer.length) {
+                drain();
+            }
+            int n = Math.min(len, _buffer.length - _length);
+            System.arraycopy(text, off, _buffer, _length, n);
+            _length += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /** Write out everything buffered so far. */
+    void flush() {
+        drain();
+        try {
+            _out.flush();
+        } catch (IOException excp) {
+            throw error("could not write output: %s", excp.getMessage());
+        }
+    }
+
+    /** Write out everything buffered so far and close the underlying
+     *  writer. */
+    void close() {
+        flush();
+        try {
+            _out.close();
+        } catch (IOException excp) {
+            throw error("could not close output: %s", excp.getMessage());
+        }
+    }
+
+    /** Add C to the buffer, writing out the buffer if it is full. */
+    private void put(char c) {
+        if (_length == _buffer.length) {
+            drain();
+        }
+        _buffer[_length] = c;
+        _length += 1;
+    }
+
+    /** Write the contents of the buffer to _out and empty it. */
+    private void drain() {
+        try {
+            _out.write(_buffer, 0, _length);
+            _length = 0;
+        } catch (IOException excp) {
+            throw error("could not write output: %s", excp.getMessage());
+        }
+    }
+
+    /** The line separator. */
+    private static final String NEWLINE = System.lineSeparator();
+
+    /** Destination of output. */
+    private final Writer _out;
+
+    /** Output not yet written to _out. */
+    private final char[] _buffer;
+
+    /** Number of characters in _buffer. */
+    private int _length;
+
+    /** Number of message characters written on the current line. */
+    private int _column;
+
+}
@@ -0,0 +1,119 @@
+package enigma;
+
+import java.io.StringWriter;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+/** The suite of all JUnit tests for the GroupWriter class.
+ *  @author Karina Patel
+ */
+public class GroupWriterTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /* ***** TESTING UTILITIES ***** */
+
+    /** The line separator GroupWriter uses. */
+    private static final String NL = System.lineSeparator();
+
+    /** A StringWriter that records whether it has been flushed or
+     *  closed. */
+    private static class Recorder extends StringWriter {
+        @Override
+        public void flush() {
+            flushed = true;
+            super.flush();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        /** True once flush() or close() has been called. */
+        private boolean flushed, closed;
+    }
+
+    /** Write TEXT to OUT. */
+    private void write(GroupWriter out, String text) {
+        out.write(text.toCharArray(), 0, text.length());
+    }
+
+    /* ***** TESTS ***** */
+
+    @Test
+    public void testGroups() {
+        StringWriter result = new StringWriter();
+        GroupWriter out = new GroupWriter(result);
+        write(out, "ABCDEFGHIJKL");
+        out.newLine();
+        out.flush();
+        assertEquals("ABCDE FGHIJ KL" + NL, result.toString());
+    }
+
+    @Test
+    public void testGroupsAcrossWrites() {
+        StringWriter result = new StringWriter();
+        GroupWriter out = new GroupWriter(result, 4);
+        write(out, "AB");
+        write(out, "CDEF");
+        write(out, "");
+        write(out, "GHIJK");
+        char[] msg = "xxLMNOPxx".toCharArray();
+        out.write(msg, 2, 5);
+        out.newLine();
+        out.flush();
+        assertEquals("ABCDE FGHIJ KLMNO P" + NL, result.toString());
+    }
+
+    @Test
+    public void testNewLineResets() {
+        StringWriter result = new StringWriter();
+        GroupWriter out = new GroupWriter(result);
+        write(out, "ABC");
+        out.newLine();
+        write(out, "DEFGH");
+        out.newLine();
+        out.newLine();
+        write(out, "IJKLMN");
+        out.newLine();
+        out.flush();
+        assertEquals("ABC" + NL + "DEFGH" + NL + NL + "IJKLM N" + NL,
+                     result.toString());
+    }
+
+    @Test
+    public void testUngrouped() {
+        StringWriter result = new StringWriter();
+        GroupWriter out = new GroupWriter(result, 3);
+        char[] text = ("ABCDEFG" + NL + "HI" + NL).toCharArray();
+        out.writeUngrouped(text, 0, text.length);
+        write(out, "JKLMNO");
+        out.newLine();
+        out.flush();
+        assertEquals("ABCDEFG" + NL + "HI" + NL + "JKLMN O" + NL,
+                     result.toString());
+    }
+
+    @Test
+    public void testFlushAndClose() {
+        Recorder result = new Recorder();
+        GroupWriter out = new GroupWriter(result);
+        write(out, "ABC");
+        assertEquals("", result.toString());
+        out.flush();
+        assertTrue(result.flushed);
+        assertFalse(result.closed);
+        assertEquals("ABC", result.toString());
+        write(out, "DE");
+        out.newLine();
+        out.close();
+        assertTrue(result.closed);
+        assertEquals("ABCDE" + NL, result.toString());
+    }
+
+}
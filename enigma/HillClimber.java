@@ -0,0 +1,484 @@
+package enigma;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import static enigma.EnigmaException.*;
+
+/** Recovers keys from ciphertext alone, in two phases.
+ *
+ *  First, every rotor order is tried at every initial position with no
+ *  plugboard, and the positions whose decryptions have the highest index
+ *  of coincidence (the sum over characters of count * (count - 1)) are
+ *  kept.  Second, for each kept position and several random starting
+ *  plugboards, pairs of plugs are changed one at a time, keeping each
+ *  change that improves the score of the decryption, until none does;
+ *  this is done with each NGramTable given in turn (typically bigrams,
+ *  then quadgrams).
+ *
+ *  Both phases are divided into tasks on a fork/join pool.  Each worker
+ *  thread keeps one fork of the machine and all its scratch arrays, so
+ *  that trying a candidate allocates nothing: the first phase decrypts
+ *  with the fork, and the second precomputes the permutation performed
+ *  by the rotors at each offset of the ciphertext (Machine.scramblers),
+ *  so that decrypting under a candidate plugboard S takes three array
+ *  accesses per character.  Ring settings are not climbed, so every
+ *  key found has its rings at 0.
+ *  @author Karina Patel
+ */
+class HillClimber {
+
+    /** Default number of positions kept by the first phase. */
+    static final int DEFAULT_CANDIDATES = 64;
+
+    /** Default number of starting plugboards tried for each position. */
+    static final int DEFAULT_RESTARTS = 4;
+
+    /** Largest number of plugboard pairs tried. */
+    static final int MAX_PAIRS = 10;
+
+    /** A solver for the rotors of BASE scoring with TABLES in turn, whose
+     *  tasks run on POOL, that keeps CANDIDATES positions from the first
+     *  phase and climbs from RESTARTS plugboards for each. */
+    HillClimber(Machine base, ForkJoinPool pool, int candidates,
+                int restarts, NGramTable... tables) {
+        if (tables.length == 0) {
+            throw error("no n-gram tables to score with");
+        }
+        if (candidates < 1 || restarts < 1) {
+            throw error("need at least one candidate and one restart");
+        }
+        for (NGramTable table : tables) {
+            if (table.alphabet().size() != base.alphabet().size()) {
+                throw error("n-gram table does not match alphabet");
+            }
+        }
+        _base = base;
+        _pool = pool;
+        _alphabet = base.alphabet();
+        _orders = KeySearch.rotorOrders(base);
+        _numCandidates = candidates;
+        _restarts = restarts;
+        _tables = tables;
+        _workers = ThreadLocal.withInitial(Worker::new);
+    }
+
+    /** A solver for the rotors of BASE with the default numbers of
+     *  candidates and restarts, using the common pool. */
+    HillClimber(Machine base, NGramTable... tables) {
+        this(base, ForkJoinPool.commonPool(), DEFAULT_CANDIDATES,
+             DEFAULT_RESTARTS, tables);
+    }
+
+    /** Return the keys found for CIPHERTEXT, best first, with no two
+     *  alike. */
+    List<KeySearch.Match> solve(String ciphertext) {
+        _cipher = new int[ciphertext.length()];
+        for (int i = 0; i < _cipher.length; i += 1) {
+            _cipher[i] = _alphabet.toInt(ciphertext.charAt(i));
+        }
+        long start = System.nanoTime();
+        _best = new PriorityQueue<>();
+        _threshold = -1;
+        LongAdder tried = new LongAdder();
+        if (!_orders.isEmpty()) {
+            _pool.invoke(new Survey(tried, 0,
+                                    _orders.size() * _alphabet.size()));
+        }
+        _positions = tried.sum();
+        _candidates = _best.toArray(new Candidate[0]);
+
+        ConcurrentLinkedQueue<Candidate> climbed =
+            new ConcurrentLinkedQueue<>();
+        if (_candidates.length > 0) {
+            _pool.invoke(new Climb(climbed, 0,
+                                   _candidates.length * _restarts));
+        }
+        _elapsed = System.nanoTime() - start;
+
+        Candidate[] results = climbed.toArray(new Candidate[0]);
+        Arrays.sort(results, (x, y) -> Float.compare(y._score, x._score));
+        ArrayList<KeySearch.Match> result = new ArrayList<>();
+        HashSet<String> seen = new HashSet<>();
+        for (Candidate c : results) {
+            KeySearch.Match match = c.match();
+            if (seen.add(match.toString())) {
+                result.add(match);
+            }
+        }
+        return result;
+    }
+
+    /** Return the number of positions surveyed by the last search. */
+    long positions() {
+        return _positions;
+    }
+
+    /** Return the time taken by the last search, in nanoseconds. */
+    long elapsedNanos() {
+        return _elapsed;
+    }
+
+    /** Return the number of positions surveyed per second by the last
+     *  search. */
+    double positionsPerSecond() {
+        return _elapsed == 0 ? 0 : _positions * 1e9 / _elapsed;
+    }
+
+    /** A rotor order and initial positions, with a plugboard and score
+     *  once climbed. */
+    private class Candidate implements Comparable<Candidate> {
+
+        /** Rotor order ORDER at SETTINGS, scoring SCORE. */
+        Candidate(int order, int[] settings, float score) {
+            _order = order;
+            _settings = settings;
+            _score = score;
+        }
+
+        /** Orders candidates by increasing score. */
+        @Override
+        public int compareTo(Candidate other) {
+            return Float.compare(_score, other._score);
+        }
+
+        /** Return the key I represent. */
+        KeySearch.Match match() {
+            char[] positions = new char[_settings.length - 1];
+            for (int i = 1; i < _settings.length; i += 1) {
+                positions[i - 1] = _alphabet.toChar(_settings[i]);
+            }
+            StringBuilder plugboard = new StringBuilder();
+            for (int a = 0; _plugs != null && a < _plugs.length; a += 1) {
+                if (a < _plugs[a]) {
+                    if (plugboard.length() > 0) {
+                        plugboard.append(' ');
+                    }
+                    plugboard.append('(').append(_alphabet.toChar(a))
+                        .append(_alphabet.toChar(_plugs[a])).append(')');
+                }
+            }
+            return new KeySearch.Match(_order, _orders.get(_order),
+                                       new String(positions),
+                                       plugboard.toString());
+        }
+
+        /** Index of my rotor order. */
+        private final int _order;
+
+        /** My rotor settings, by slot. */
+        private final int[] _settings;
+
+        /** My score. */
+        private final float _score;
+
+        /** My plugboard, as a map from each index to its partner, or
+         *  null if not yet climbed. */
+        private int[] _plugs;
+    }
+
+    /** The scratch state of one worker thread. */
+    private class Worker {
+
+        /** A worker with its own fork of the machine, without plugboard. */
+        Worker() {
+            int n = _alphabet.size();
+            machine = _base.fork();
+            machine.setCompositeCaching(false);
+            machine.setPlugboard(new Permutation("", _alphabet));
+            histogram = new int[n];
+            plugs = new int[n];
+            saved = new int[n];
+            order = -1;
+        }
+
+        /** Make sure my arrays can hold a ciphertext of length LEN. */
+        void fit(int len) {
+            if (plain == null || plain.length < len) {
+                plain = new int[len];
+                scramblers = new int[len][_alphabet.size()];
+            }
+        }
+
+        /** Put the rotors of order ORDER in my machine, if not there. */
+        void useOrder(int newOrder) {
+            if (order != newOrder) {
+                machine.insertRotors(_orders.get(newOrder));
+                order = newOrder;
+            }
+        }
+
+        /** My machine. */
+        final Machine machine;
+
+        /** Index of the rotor order in machine, or -1. */
+        int order;
+
+        /** Counts of each character in a decryption. */
+        final int[] histogram;
+
+        /** The current plugboard, and a copy of it. */
+        final int[] plugs, saved;
+
+        /** A decryption. */
+        int[] plain;
+
+        /** The rotor permutations for each offset of the ciphertext. */
+        int[][] scramblers;
+    }
+
+    /** The task of surveying a range of rotor orders and positions of
+     *  the leftmost settable rotor by index of coincidence. */
+    private class Survey extends RecursiveAction {
+
+        /** Survey the combinations LO .. HI-1 of rotor order (the
+         *  quotient by the alphabet size) and leftmost position (the
+         *  remainder), counting positions in TRIED. */
+        Survey(LongAdder tried, int lo, int hi) {
+            _tried = tried;
+            _lo = lo;
+            _hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (_hi - _lo > 1) {
+                int mid = _lo + (_hi - _lo) / 2;
+                invokeAll(new Survey(_tried, _lo, mid),
+                          new Survey(_tried, mid, _hi));
+                return;
+            }
+            int size = _alphabet.size();
+            Worker w = _workers.get();
+            w.useOrder(_lo / size);
+            Machine m = w.machine;
+            int[] histogram = w.histogram;
+            int last = m.numRotors() - 1;
+            int[] settings = new int[last + 1];
+            settings[1] = _lo % size;
+            long count = 0;
+            while (true) {
+                m.restore(settings);
+                Arrays.fill(histogram, 0);
+                for (int c : _cipher) {
+                    histogram[m.convert(c)] += 1;
+                }
+                long ioc = 0;
+                for (int h : histogram) {
+                    ioc += (long) h * (h - 1);
+                }
+                if (ioc > _threshold) {
+                    offer(new Candidate(_lo / size, settings.clone(), ioc));
+                }
+                count += 1;
+                int j = last;
+                while (j >= 2 && settings[j] == size - 1) {
+                    settings[j] = 0;
+                    j -= 1;
+                }
+                if (j < 2) {
+                    break;
+                }
+                settings[j] += 1;
+            }
+            _tried.add(count);
+        }
+
+        /** Number of positions surveyed. */
+        private final LongAdder _tried;
+
+        /** Bounds of my range of combinations. */
+        private final int _lo, _hi;
+    }
+
+    /** Add C to the best candidates, if it is among them. */
+    private synchronized void offer(Candidate c) {
+        if (_best.size() < _numCandidates) {
+            _best.add(c);
+        } else if (c._score > _best.peek()._score) {
+            _best.poll();
+            _best.add(c);
+        } else {
+            return;
+        }
+        if (_best.size() == _numCandidates) {
+            _threshold = (long) _best.peek()._score;
+        }
+    }
+
+    /** The task of climbing from a range of candidates and starting
+     *  plugboards. */
+    private class Climb extends RecursiveAction {
+
+        /** Climb from the combinations LO .. HI-1 of candidate (the
+         *  quotient by the number of restarts) and starting plugboard
+         *  (the remainder), adding the results to CLIMBED. */
+        Climb(ConcurrentLinkedQueue<Candidate> climbed, int lo, int hi) {
+            _climbed = climbed;
+            _lo = lo;
+            _hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (_hi - _lo > 1) {
+                int mid = _lo + (_hi - _lo) / 2;
+                invokeAll(new Climb(_climbed, _lo, mid),
+                          new Climb(_climbed, mid, _hi));
+                return;
+            }
+            Candidate start = _candidates[_lo / _restarts];
+            Worker w = _workers.get();
+            w.fit(_cipher.length);
+            w.useOrder(start._order);
+            w.machine.restore(start._settings);
+            w.machine.scramblers(w.scramblers);
+            int n = _alphabet.size();
+            int[] plugs = w.plugs;
+            for (int a = 0; a < n; a += 1) {
+                plugs[a] = a;
+            }
+            SplittableRandom random = new SplittableRandom(_lo);
+            for (int k = 0; k < _lo % _restarts * 2 && k < MAX_PAIRS; k += 1) {
+                swap(plugs, random.nextInt(n), random.nextInt(n));
+            }
+            float score = 0;
+            for (NGramTable table : _tables) {
+                score = climb(w, table);
+            }
+            Candidate result = new Candidate(start._order, start._settings,
+                                             score);
+            result._plugs = plugs.clone();
+            _climbed.add(result);
+        }
+
+        /** Improve W's plugboard one pair at a time for as long as that
+         *  raises the score of the decryption under TABLE, returning
+         *  the final score. */
+        private float climb(Worker w, NGramTable table) {
+            int n = _alphabet.size();
+            int[] plugs = w.plugs, saved = w.saved;
+            float best = score(w, table);
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (int a = 0; a < n; a += 1) {
+                    for (int b = a + 1; b < n; b += 1) {
+                        System.arraycopy(plugs, 0, saved, 0, n);
+                        if (!swap(plugs, a, b)) {
+                            continue;
+                        }
+                        float s = score(w, table);
+                        if (s > best) {
+                            best = s;
+                            improved = true;
+                        } else {
+                            System.arraycopy(saved, 0, plugs, 0, n);
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+
+        /** Return the score under TABLE of the decryption of the
+         *  ciphertext with W's plugboard. */
+        private float score(Worker w, NGramTable table) {
+            int[] plugs = w.plugs, plain = w.plain;
+            int[][] scramblers = w.scramblers;
+            for (int k = 0; k < _cipher.length; k += 1) {
+                plain[k] = plugs[scramblers[k][plugs[_cipher[k]]]];
+            }
+            return table.score(plain, _cipher.length);
+        }
+
+        /** Results of climbing. */
+        private final ConcurrentLinkedQueue<Candidate> _climbed;
+
+        /** Bounds of my range of combinations. */
+        private final int _lo, _hi;
+    }
+
+    /** Change the plugboard PLUGS, a map from each index to its partner,
+     *  by unplugging A and B if they are plugged together, and otherwise
+     *  unplugging them from any partners and plugging them together if
+     *  there are fewer than MAX_PAIRS pairs.  Returns false if this does
+     *  not change PLUGS. */
+    private static boolean swap(int[] plugs, int a, int b) {
+        if (a == b) {
+            return false;
+        } else if (plugs[a] == b) {
+            plugs[a] = a;
+            plugs[b] = b;
+            return true;
+        }
+        plugs[plugs[a]] = plugs[a];
+        plugs[a] = a;
+        plugs[plugs[b]] = plugs[b];
+        plugs[b] = b;
+        int pairs = 0;
+        for (int c = 0; c < plugs.length; c += 1) {
+            if (plugs[c] > c) {
+                pairs += 1;
+            }
+        }
+        if (pairs >= MAX_PAIRS) {
+            return true;
+        }
+        plugs[a] = b;
+        plugs[b] = a;
+        return true;
+    }
+
+    /** The machine whose rotors I use. */
+    private final Machine _base;
+
+    /** Pool on which tasks run. */
+    private final ForkJoinPool _pool;
+
+    /** The alphabet of _base. */
+    private final Alphabet _alphabet;
+
+    /** The rotor orders tried. */
+    private final List<String[]> _orders;
+
+    /** Number of positions kept by the first phase. */
+    private final int _numCandidates;
+
+    /** Number of starting plugboards for each position. */
+    private final int _restarts;
+
+    /** The tables used to score decryptions, in order. */
+    private final NGramTable[] _tables;
+
+    /** The scratch state of each worker thread. */
+    private final ThreadLocal<Worker> _workers;
+
+    /** The ciphertext of the current search, as indices. */
+    private int[] _cipher;
+
+    /** The best positions found so far by the first phase. */
+    private PriorityQueue<Candidate> _best;
+
+    /** The score a position must beat to be among _best, once it is
+     *  full. */
+    private volatile long _threshold;
+
+    /** The positions kept by the first phase. */
+    private Candidate[] _candidates;
+
+    /** Number of positions surveyed by the last search. */
+    private long _positions;
+
+    /** Time taken by the last search, in nanoseconds. */
+    private long _elapsed;
+
+}
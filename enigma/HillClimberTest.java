@@ -0,0 +1,63 @@
+package enigma;
+
+import java.io.StringReader;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+import static enigma.TestUtils.*;
+
+/** The suite of all JUnit tests for the HillClimber class.
+ *  @author Karina Patel
+ */
+public class HillClimberTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /** Text from which the test tables are built, and which is then
+     *  enciphered. */
+    private static final String CORPUS =
+        "IT WAS THE BEST OF TIMES IT WAS THE WORST OF TIMES "
+        + "IT WAS THE AGE OF WISDOM IT WAS THE AGE OF FOOLISHNESS IT WAS "
+        + "THE EPOCH OF BELIEF IT WAS THE EPOCH OF INCREDULITY IT WAS "
+        + "THE SEASON OF LIGHT IT WAS THE SEASON OF DARKNESS IT WAS THE "
+        + "SPRING OF HOPE IT WAS THE WINTER OF DESPAIR";
+
+    /** Return a table of the bigrams of CORPUS. */
+    private NGramTable bigrams() {
+        return NGramTable.fromCorpus(UPPER, 2, new StringReader(CORPUS));
+    }
+
+    @Test
+    public void testSolve() {
+        Machine machine = machine(3, 2, new String[] {"B", "III", "I"},
+                                  "QV", "");
+        String ciphertext = machine.convert(CORPUS.replace(" ", ""));
+        HillClimber climber =
+            new HillClimber(new Machine(UPPER, 3, 2, R),
+                            ForkJoinPool.commonPool(), 4, 2, bigrams());
+        KeySearch.Match best = climber.solve(ciphertext).get(0);
+        assertEquals("* B III I QV", best.toString());
+        assertEquals(12 * 26 * 26, climber.positions());
+    }
+
+    @Test
+    public void testNoRotorOrders() {
+        HillClimber climber =
+            new HillClimber(noRotorOrders(), ForkJoinPool.commonPool(),
+                            4, 2, bigrams());
+        assertTrue(climber.solve("ABCDEFGHIJ").isEmpty());
+        assertEquals(0, climber.positions());
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testNoCandidates() {
+        new HillClimber(new Machine(UPPER, 3, 2, R),
+                        ForkJoinPool.commonPool(), 0, 2, bigrams());
+    }
+
+}
@@ -0,0 +1,315 @@
+package enigma;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import static enigma.EnigmaException.*;
+
+/** Recovers the rotors and initial positions that encipher a known
+ *  plaintext (a crib) as a given ciphertext, by trying every order of
+ *  the available rotors at every initial position.  The plugboard is
+ *  taken to be known, and is copied from the machine searched; ring
+ *  settings are left at 0 rather than searched.
+ *
+ *  The work is divided into one task for each rotor order and initial
+ *  position of the leftmost settable rotor, which run on a fork/join
+ *  pool.  Each task uses its own fork of the machine, whose rotor
+ *  tables are shared, and rejects a candidate as soon as one character
+ *  fails to match.
+ *  @author Karina Patel
+ */
+class KeySearch {
+
+    /** A key found by a search: an order of rotors, their initial
+     *  positions, and possibly plugboard cycles. */
+    static class Match implements Comparable<Match> {
+
+        /** A match of the rotors named ROTORS, which are order number
+         *  ORDER of the search, at initial positions POSITIONS, with
+         *  plugboard cycles PLUGBOARD (in the form of a settings line,
+         *  and empty if none are known). */
+        Match(int order, String[] rotors, String positions,
+              String plugboard) {
+            _order = order;
+            _rotors = rotors;
+            _positions = positions;
+            _plugboard = plugboard;
+        }
+
+        /** A match of the rotors named ROTORS, which are order number
+         *  ORDER of the search, at initial positions POSITIONS. */
+        Match(int order, String[] rotors, String positions) {
+            this(order, rotors, positions, "");
+        }
+
+        /** Return the names of my rotors, reflector first. */
+        String[] rotors() {
+            return _rotors;
+        }
+
+        /** Return the initial positions of my non-reflector rotors. */
+        String positions() {
+            return _positions;
+        }
+
+        /** Return my plugboard cycles, which may be empty. */
+        String plugboard() {
+            return _plugboard;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            if (_order != other._order) {
+                return Integer.compare(_order, other._order);
+            }
+            int cmp = _positions.compareTo(other._positions);
+            return cmp != 0 ? cmp : _plugboard.compareTo(other._plugboard);
+        }
+
+        /** Returns a settings line for me. */
+        @Override
+        public String toString() {
+            String line = "* " + String.join(" ", _rotors) + " " + _positions;
+            return _plugboard.isEmpty() ? line : line + " " + _plugboard;
+        }
+
+        /** Index of my rotor order in the search. */
+        private final int _order;
+
+        /** My rotors. */
+        private final String[] _rotors;
+
+        /** My initial positions. */
+        private final String _positions;
+
+        /** My plugboard cycles. */
+        private final String _plugboard;
+    }
+
+    /** A search over the rotors of BASE, using BASE's plugboard, whose
+     *  tasks run on POOL. */
+    KeySearch(Machine base, ForkJoinPool pool) {
+        _base = base;
+        _pool = pool;
+        _alphabet = base.alphabet();
+        _orders = rotorOrders(base);
+    }
+
+    /** A search over the rotors of BASE using the common pool. */
+    KeySearch(Machine base) {
+        this(base, ForkJoinPool.commonPool());
+    }
+
+    /** Return every order of the rotors of BASE that may be inserted in
+     *  it: a reflector, then distinct non-moving rotors for the slots
+     *  without pawls, then distinct moving rotors for the rest. */
+    static List<String[]> rotorOrders(Machine base) {
+        ArrayList<String> reflectors = new ArrayList<>();
+        ArrayList<String> fixed = new ArrayList<>();
+        ArrayList<String> moving = new ArrayList<>();
+        for (Rotor r : base.allRotors()) {
+            if (r.reflecting()) {
+                reflectors.add(r.name());
+            } else if (r.rotates()) {
+                moving.add(r.name());
+            } else {
+                fixed.add(r.name());
+            }
+        }
+        ArrayList<String[]> result = new ArrayList<>();
+        String[] order = new String[base.numRotors()];
+        int firstMoving = base.numRotors() - base.numPawls();
+        for (String reflector : reflectors) {
+            order[0] = reflector;
+            arrange(order, 1, firstMoving, fixed, moving, result);
+        }
+        return result;
+    }
+
+    /** Return the number of rotor orders I try. */
+    int numOrders() {
+        return _orders.size();
+    }
+
+    /** Return the keys for which my machine converts CRIB to the
+     *  corresponding characters at the start of CIPHERTEXT, ordered by
+     *  rotor order and then by initial positions, each with my machine's
+     *  plugboard. */
+    List<Match> search(String ciphertext, String crib) {
+        if (crib.length() == 0 || crib.length() > ciphertext.length()) {
+            throw error("crib must be nonempty and no longer than "
+                        + "the ciphertext");
+        }
+        int[] plain = new int[crib.length()];
+        int[] cipher = new int[crib.length()];
+        for (int i = 0; i < plain.length; i += 1) {
+            plain[i] = _alphabet.toInt(crib.charAt(i));
+            cipher[i] = _alphabet.toInt(ciphertext.charAt(i));
+        }
+        ConcurrentLinkedQueue<Match> found = new ConcurrentLinkedQueue<>();
+        LongAdder tried = new LongAdder();
+        _plugboard = _base.plugboard().cycles();
+        long start = System.nanoTime();
+        if (!_orders.isEmpty()) {
+            _pool.invoke(new Task(plain, cipher, found, tried,
+                                  0, _orders.size() * _alphabet.size()));
+        }
+        _elapsed = System.nanoTime() - start;
+        _candidates = tried.sum();
+        ArrayList<Match> result = new ArrayList<>(found);
+        Collections.sort(result);
+        return result;
+    }
+
+    /** Return the number of candidate keys tried by the last search. */
+    long candidates() {
+        return _candidates;
+    }
+
+    /** Return the time taken by the last search, in nanoseconds. */
+    long elapsedNanos() {
+        return _elapsed;
+    }
+
+    /** Return the number of candidate keys tried per second by the last
+     *  search. */
+    double candidatesPerSecond() {
+        return _elapsed == 0 ? 0 : _candidates * 1e9 / _elapsed;
+    }
+
+    /** Add to RESULT a copy of ORDER for each way of filling its slots
+     *  from SLOT onward with distinct rotors, taking names from FIXED
+     *  for slots before FIRSTMOVING and from MOVING for the rest. */
+    private static void arrange(String[] order, int slot, int firstMoving,
+                                List<String> fixed, List<String> moving,
+                                List<String[]> result) {
+        if (slot == order.length) {
+            result.add(order.clone());
+            return;
+        }
+        for (String name : slot < firstMoving ? fixed : moving) {
+            boolean used = false;
+            for (int i = 1; i < slot && !used; i += 1) {
+                used = order[i].equals(name);
+            }
+            if (!used) {
+                order[slot] = name;
+                arrange(order, slot + 1, firstMoving, fixed, moving, result);
+            }
+        }
+    }
+
+    /** The task of trying a range of rotor orders and positions of the
+     *  leftmost settable rotor. */
+    private class Task extends RecursiveAction {
+
+        /** Try the combinations LO .. HI-1 of rotor order (the quotient
+         *  by the alphabet size) and leftmost position (the remainder),
+         *  looking for keys that convert PLAIN to CIPHER (both as
+         *  indices), recording them in FOUND and counting the keys
+         *  tried in TRIED. */
+        Task(int[] plain, int[] cipher, ConcurrentLinkedQueue<Match> found,
+             LongAdder tried, int lo, int hi) {
+            _plain = plain;
+            _cipher = cipher;
+            _found = found;
+            _tried = tried;
+            _lo = lo;
+            _hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (_hi - _lo > 1) {
+                int mid = _lo + (_hi - _lo) / 2;
+                invokeAll(new Task(_plain, _cipher, _found, _tried,
+                                   _lo, mid),
+                          new Task(_plain, _cipher, _found, _tried,
+                                   mid, _hi));
+                return;
+            }
+            int size = _alphabet.size();
+            int order = _lo / size;
+            Machine m = _base.fork();
+            m.setCompositeCaching(false);
+            m.insertRotors(_orders.get(order));
+            int last = m.numRotors() - 1;
+            int[] settings = new int[last + 1];
+            settings[1] = _lo % size;
+            long count = 0;
+            while (true) {
+                m.restore(settings);
+                int i;
+                for (i = 0; i < _plain.length; i += 1) {
+                    if (m.convert(_plain[i]) != _cipher[i]) {
+                        break;
+                    }
+                }
+                count += 1;
+                if (i == _plain.length) {
+                    _found.add(match(order, settings));
+                }
+                int j = last;
+                while (j >= 2 && settings[j] == size - 1) {
+                    settings[j] = 0;
+                    j -= 1;
+                }
+                if (j < 2) {
+                    break;
+                }
+                settings[j] += 1;
+            }
+            _tried.add(count);
+        }
+
+        /** Return the match for rotor order ORDER at SETTINGS. */
+        private Match match(int order, int[] settings) {
+            char[] positions = new char[settings.length - 1];
+            for (int i = 1; i < settings.length; i += 1) {
+                positions[i - 1] = _alphabet.toChar(settings[i]);
+            }
+            return new Match(order, _orders.get(order),
+                             new String(positions), _plugboard);
+        }
+
+        /** The crib and the ciphertext it must match, as indices. */
+        private final int[] _plain, _cipher;
+
+        /** Keys found. */
+        private final ConcurrentLinkedQueue<Match> _found;
+
+        /** Number of keys tried. */
+        private final LongAdder _tried;
+
+        /** Bounds of my range of combinations. */
+        private final int _lo, _hi;
+    }
+
+    /** The machine whose rotors and plugboard I use. */
+    private final Machine _base;
+
+    /** Pool on which tasks run. */
+    private final ForkJoinPool _pool;
+
+    /** The alphabet of _base. */
+    private final Alphabet _alphabet;
+
+    /** The rotor orders tried. */
+    private final List<String[]> _orders;
+
+    /** The plugboard cycles of _base during the current search, which
+     *  every match reports. */
+    private String _plugboard;
+
+    /** Number of candidates tried by the last search. */
+    private long _candidates;
+
+    /** Time taken by the last search, in nanoseconds. */
+    private long _elapsed;
+
+}
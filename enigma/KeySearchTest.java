@@ -0,0 +1,78 @@
+package enigma;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+import static enigma.TestUtils.*;
+
+/** The suite of all JUnit tests for the KeySearch class.
+ *  @author Karina Patel
+ */
+public class KeySearchTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    @Test
+    public void testSearch() {
+        Machine machine = machine(4, 3, new String[] {"B", "II", "IV", "I"},
+                                  "QDA", "(HQ) (EX)");
+        String crib = "WEATHERREPORT";
+        String ciphertext = machine.convert(crib + "FORTHENORTHSEA");
+        Machine base = new Machine(UPPER, 4, 3, R);
+        base.setPlugboard(machine.plugboard());
+        KeySearch search = new KeySearch(base);
+        assertEquals(24, search.numOrders());
+        ArrayList<String> found = new ArrayList<>();
+        for (KeySearch.Match match : search.search(ciphertext, crib)) {
+            found.add(match.toString());
+        }
+        assertTrue(found.contains("* B II IV I QDA (EX) (HQ)"));
+        assertEquals(24 * 26 * 26 * 26, search.candidates());
+    }
+
+    @Test
+    public void testMatchSettings() {
+        Machine machine = machine(4, 3, new String[] {"B", "III", "I", "II"},
+                                  "KEY", "(AZ) (BY) (CX) (MN)");
+        String plaintext = "ATTACKATDAWNONTHEEASTERNFRONT";
+        String ciphertext = machine.convert(plaintext);
+        Machine base = new Machine(UPPER, 4, 3, R);
+        base.setPlugboard(machine.plugboard());
+        List<KeySearch.Match> found =
+            new KeySearch(base).search(ciphertext, plaintext.substring(0, 12));
+        assertFalse(found.isEmpty());
+        boolean reproduced = false;
+        for (KeySearch.Match match : found) {
+            assertEquals("(AZ) (BY) (CX) (MN)", match.plugboard());
+            SettingsLine line = new SettingsLine(match.toString(), 4, UPPER);
+            Machine replay = new Machine(UPPER, 4, 3, R);
+            replay.insertRotors(line.rotors());
+            replay.setRotors(line.positions());
+            replay.setPlugboard(new Permutation(line.cycles(), UPPER));
+            String result = replay.convert(plaintext);
+            assertEquals(ciphertext.substring(0, 12), result.substring(0, 12));
+            reproduced |= result.equals(ciphertext);
+        }
+        assertTrue(reproduced);
+    }
+
+    @Test
+    public void testNoRotorOrders() {
+        KeySearch search = new KeySearch(noRotorOrders());
+        assertEquals(0, search.numOrders());
+        assertTrue(search.search("ABCDE", "BCD").isEmpty());
+        assertEquals(0, search.candidates());
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testLongCrib() {
+        new KeySearch(new Machine(UPPER, 4, 3, R)).search("ABC", "BCDE");
+    }
+
+}
@@ -1,7 +1,10 @@
 package enigma;
 
-import java.util.ArrayList;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
 
 import static enigma.EnigmaException.*;
 
@@ -10,6 +13,16 @@ import static enigma.EnigmaException.*;
  */
 class Machine {
 
+    /** Maximum number of rotor positions (ignoring the rightmost rotor)
+     *  whose composite permutations are cached at once. */
+    static final int COMPOSITE_CACHE_LIMIT = 1 << 14;
+
+    /** Number of distinct byte values. */
+    private static final int BYTE_VALUES = 256;
+
+    /** Mask selecting the bits of a byte. */
+    private static final int BYTE_MASK = 0xff;
+
     /**
      * A new Enigma machine with alphabet ALPHA, 1 < NUMROTORS rotor slots,
      * and 0 <= PAWLS < NUMROTORS pawls.  ALLROTORS contains all the
@@ -21,9 +34,40 @@ class Machine {
         _numRotors = numRotors;
         _pawls = pawls;
         _allRotors = allRotors;
+        _available = allRotors.toArray(new Rotor[0]);
+        _rotorIndex = new HashMap<>();
+        for (int k = 0; k < _available.length; k += 1) {
+            _rotorIndex.putIfAbsent(_available[k].name(), k);
+        }
         _plugboard = new Permutation("", _alphabet);
         _rotors = new Rotor[_numRotors];
+        _settings = new int[_numRotors];
+        _advance = new boolean[_numRotors];
+    }
+
+    /** A new machine with the same configuration as BASE, sharing its
+     *  index of available rotors. */
+    private Machine(Machine base) {
+        _alphabet = base._alphabet;
+        _numRotors = base._numRotors;
+        _pawls = base._pawls;
+        _allRotors = base._allRotors;
+        _available = base._available;
+        _rotorIndex = base._rotorIndex;
+        _plugboard = base._plugboard;
+        _rotors = new Rotor[_numRotors];
+        _settings = new int[_numRotors];
+        _advance = new boolean[_numRotors];
+    }
 
+    /** Return my alphabet. */
+    Alphabet alphabet() {
+        return _alphabet;
+    }
+
+    /** Return all the rotors available to me. */
+    Collection<Rotor> allRotors() {
+        return _allRotors;
     }
 
     /**
@@ -47,26 +91,37 @@ class Machine {
      * Initially, all rotors are set at their 0 setting.
      */
     void insertRotors(String[] rotors) {
-        int i = 0;
-        ArrayList<String> names = new ArrayList<>();
-        for (String name : rotors) {
-            for (Rotor r : _allRotors) {
-                if (r.name().equals(name)) {
-                    _rotors[i] = r;
-                    r.set(0);
-                    i++;
-                    if (names.contains(name)) {
-                        throw new EnigmaException("Two of the "
-                                + "same name occurred.");
-                    } else {
-                        names.add(name);
-                    }
-                }
-            }
+        clearComposites();
+        if (rotors.length != _numRotors) {
+            throw error("wrong number of rotors: %d", rotors.length);
         }
-        if (_rotors.length != rotors.length) {
-            throw new EnigmaException("Misnaming");
+        Rotor[] inserted = new Rotor[_numRotors];
+        int[][][] forward = new int[_numRotors][][];
+        int[][][] backward = new int[_numRotors][][];
+        if (_inUse == null) {
+            _inUse = new BitSet(_available.length);
         }
+        _inUse.clear();
+        for (int i = 0; i < _numRotors; i += 1) {
+            Integer k = _rotorIndex.get(rotors[i]);
+            if (k == null) {
+                throw error("rotor %s not found", rotors[i]);
+            }
+            if (_inUse.get(k)) {
+                throw error("Two of the same name occurred.");
+            }
+            _inUse.set(k);
+            inserted[i] = _available[k];
+            forward[i] = inserted[i].forwardTable();
+            backward[i] = inserted[i].backwardTable();
+        }
+        _rotors = inserted;
+        _forward = forward;
+        _backward = backward;
+        _rings = new int[_numRotors];
+        _settings = new int[_numRotors];
+        _origin = new int[_numRotors];
+        _position = 0;
     }
 
 
@@ -78,75 +133,463 @@ class Machine {
             throw new EnigmaException("Length of settings string, "
                     + "doesn't match number of settable rotors");
         }
+        _compositeRows = null;
         if (!_rotors[0].reflecting()) {
             throw new EnigmaException("Reflector isn't in place");
         }
 
         for (int i = 1; i <= setting.length(); i++) {
-            _rotors[i].set(setting.charAt(i - 1));
+            _settings[i] = _alphabet.toInt(setting.charAt(i - 1));
+        }
+        System.arraycopy(_settings, 0, _origin, 0, _numRotors);
+        _position = 0;
+    }
+
+    /** Set the rings of my rotors according to RINGS, which must be a
+     *  string of numRotors()-1 upper-case letters, leftmost rotor first
+     *  (not counting the reflector).  A rotor whose ring is set to R and
+     *  which shows setting S is wired as if at setting S - R, while its
+     *  notches still refer to S.  The ring is folded into the tables I
+     *  convert with by rotating their rows, so it costs nothing per
+     *  character. */
+    void setRings(String rings) {
+        if (rings.length() != _numRotors - 1) {
+            throw error("Length of ring setting string, "
+                        + "doesn't match number of settable rotors");
+        }
+        if (_rings == null) {
+            throw error("no rotors inserted");
+        }
+        clearComposites();
+        int[] ring = new int[_numRotors];
+        int[][][] forward = new int[_numRotors][][];
+        int[][][] backward = new int[_numRotors][][];
+        forward[0] = _forward[0];
+        backward[0] = _backward[0];
+        for (int i = 1; i < _numRotors; i += 1) {
+            ring[i] = _alphabet.toInt(rings.charAt(i - 1));
+            forward[i] = _rotors[i].forwardTable(ring[i]);
+            backward[i] = _rotors[i].backwardTable(ring[i]);
+        }
+        _rings = ring;
+        _forward = forward;
+        _backward = backward;
+    }
+
+    /** Return a copy of the settings of my rotors, indexed by slot. */
+    int[] snapshot() {
+        return _settings.clone();
+    }
+
+    /** Set my rotors to SETTINGS, as returned by snapshot(), as if by
+     *  setRotors. */
+    void restore(int[] settings) {
+        if (settings.length != _numRotors) {
+            throw error("wrong number of rotor settings");
+        }
+        _compositeRows = null;
+        System.arraycopy(settings, 0, _settings, 0, _numRotors);
+        System.arraycopy(settings, 0, _origin, 0, _numRotors);
+        _position = 0;
+    }
+
+    /** Return a new machine with my alphabet, rotors, plugboard and
+     *  current state, whose state then changes independently of mine.
+     *  Only my small arrays of settings are copied; rotors, their
+     *  compiled tables and the plugboard are shared, since no machine
+     *  modifies them. */
+    Machine fork() {
+        Machine result = new Machine(this);
+        result._rotors = _rotors;
+        result._forward = _forward;
+        result._backward = _backward;
+        result._rings = _rings;
+        result._plugboard = _plugboard;
+        result._byteToIndex = _byteToIndex;
+        result._indexToByte = _indexToByte;
+        result._settings = _settings.clone();
+        result._origin = _origin == null ? null : _origin.clone();
+        result._position = _position;
+        result.setCompositeCaching(compositeCaching());
+        return result;
+    }
+
+    /** Put me in the same state as OTHER, a machine with the same
+     *  configuration as mine: the same rotors in the same positions,
+     *  the same plugboard, and the same position().  As with fork(),
+     *  the rotors and plugboard are shared rather than copied.  If they
+     *  are the ones I already have, my cached composites stay valid. */
+    void copyState(Machine other) {
+        if (_forward != other._forward || _plugboard != other._plugboard) {
+            clearComposites();
+        }
+        _compositeRows = null;
+        _rotors = other._rotors;
+        _forward = other._forward;
+        _backward = other._backward;
+        _rings = other._rings;
+        _plugboard = other._plugboard;
+        if (_origin == null) {
+            _origin = new int[_numRotors];
         }
+        System.arraycopy(other._settings, 0, _settings, 0, _numRotors);
+        System.arraycopy(other._origin, 0, _origin, 0, _numRotors);
+        _position = other._position;
+    }
+
+    /** Compile every available rotor, so that later calls to
+     *  insertRotors find their tables ready. */
+    void compileRotors() {
+        for (Rotor r : _allRotors) {
+            r.compile();
+        }
+    }
+
+    /** Return the number of keystrokes made since my rotors were last
+     *  inserted or set. */
+    long position() {
+        return _position;
+    }
+
+    /** Put my rotors in the state they would have after POSITION
+     *  keystrokes since they were last inserted or set. */
+    void seek(long position) {
+        if (position < 0) {
+            throw error("negative machine position");
+        }
+        if (position < _position) {
+            System.arraycopy(_origin, 0, _settings, 0, _numRotors);
+            _position = 0;
+        }
+        advance(position - _position);
+    }
+
+    /** Put my rotors in the state they would have after N more
+     *  keystrokes, with the same stepping (including double stepping)
+     *  as convert(int).  Only notch events are simulated individually:
+     *  the stretches between them, during which only the two rightmost
+     *  rotors move, are crossed arithmetically. */
+    void advance(long n) {
+        if (n < 0) {
+            throw error("cannot advance a machine backwards");
+        }
+        _position += n;
+        _compositeRows = null;
+        int last = _numRotors - 1;
+        int first = last;
+        while (first > 0 && _rotors[first - 1].rotates()) {
+            first -= 1;
+        }
+        boolean contiguous = _rotors[last].rotates();
+        for (int i = 0; i < first; i += 1) {
+            contiguous &= !_rotors[i].rotates();
+        }
+        if (!contiguous || first == last) {
+            if (!contiguous) {
+                for (; n > 0; n -= 1) {
+                    step();
+                }
+            } else {
+                turn(last, n);
+            }
+            return;
+        }
+
+        Rotor right = _rotors[last];
+        while (n > 0) {
+            boolean event = false;
+            for (int i = first + 1; i < last; i += 1) {
+                event |= _rotors[i].atNotch(_settings[i]);
+            }
+            if (event) {
+                step();
+                n -= 1;
+                continue;
+            }
+            int d = first == last - 1 ? -1
+                : _rotors[last - 1].notchDistance(_settings[last - 1]);
+            long t = d < 0 ? -1 : right.stepsToNotches(_settings[last], d);
+            if (t < 0 || t > n) {
+                turn(last - 1, right.notchesWithin(_settings[last], n));
+                turn(last, n);
+                return;
+            }
+            turn(last - 1, d);
+            turn(last, t);
+            n -= t;
+        }
+    }
+
+    /** Advance the rotor in slot I by K positions. */
+    private void turn(int i, long k) {
+        int size = _alphabet.size();
+        _settings[i] = (int) ((_settings[i] + k % size) % size);
     }
 
     /** Set the plugboard to PLUGBOARD. */
     void setPlugboard(Permutation plugboard) {
         _plugboard = plugboard;
+        clearComposites();
     }
 
     /** Returns the result of converting the input character C (as an
      *  index in the range 0..alphabet size - 1), after first advancing
      *  the machine. */
-
     int convert(int c) {
+        boolean moved = step();
+        _position += 1;
+        if (_composites != null) {
+            if (moved || _compositeRows == null) {
+                _compositeRows = compositeRows();
+            }
+            int r = _settings[_numRotors - 1];
+            int[] row = _compositeRows[r];
+            if (row == null) {
+                row = _compositeRows[r] = new int[_alphabet.size()];
+                composite(row);
+            }
+            return row[_plugboard.wrap(c)];
+        }
+        return _plugboard.permuteUnchecked(scramble(_plugboard.permute(c)));
+    }
 
-        boolean[] advance = new boolean[numRotors()];
-        for (boolean b : advance) {
-            b = false;
+    /** Advance the rotors as for one keystroke.  Returns true iff any
+     *  rotor other than the rightmost one moved. */
+    private boolean step() {
+        boolean[] advance = _advance;
+        for (int i = 0; i < numRotors(); i += 1) {
+            advance[i] = false;
         }
         for (int i = 0; i < numRotors(); i += 1) {
             if (!_rotors[i].rotates()) {
                 advance[i] = false;
             } else if (i == numRotors() - 1) {
                 advance[i] = true;
-            } else if (_rotors[i + 1].atNotch()) {
+            } else if (_rotors[i + 1].atNotch(_settings[i + 1])) {
                 advance[i] = true;
                 advance[i + 1] = true;
             }
         }
+        boolean moved = false;
+        int size = _alphabet.size();
         for (int i = 0; i < numRotors(); i += 1) {
             if (advance[i]) {
-                _rotors[i].advance();
+                _settings[i] += 1;
+                if (_settings[i] == size) {
+                    _settings[i] = 0;
+                }
+                moved |= i < numRotors() - 1;
             }
         }
+        return moved;
+    }
 
-        c = _plugboard.permute(c);
+    /** Return the result of passing C through the rotors and reflector
+     *  at their current settings, bypassing the plugboard. */
+    private int scramble(int c) {
         for (int j = _rotors.length - 1; j >= 0; j--) {
-            c = _rotors[j].convertForward(c);
+            c = _forward[j][_settings[j]][c];
         }
 
         for (int i = 1; i < _rotors.length; i++) {
-            c = _rotors[i].convertBackward(c);
+            c = _backward[i][_settings[i]][c];
         }
-
-        c = _plugboard.permute(c);
         return c;
+    }
+
+    /** Fill DEST with the permutation of the alphabet performed by the
+     *  rotors and reflector at their current settings, without the
+     *  plugboard and without advancing anything. */
+    void scrambler(int[] dest) {
+        for (int c = 0; c < dest.length; c += 1) {
+            dest[c] = scramble(c);
+        }
+    }
+
+    /** Advance me DEST.length keystrokes, filling DEST[K] with the
+     *  permutation performed by my rotors and reflector, as for
+     *  scrambler, just after keystroke K.  These are the permutations
+     *  that, with the plugboard on either side, convert the next
+     *  DEST.length characters. */
+    void scramblers(int[][] dest) {
+        _compositeRows = null;
+        for (int[] row : dest) {
+            step();
+            _position += 1;
+            scrambler(row);
+        }
+    }
+
+    /** Fill DEST with the permutation of the alphabet performed by the
+     *  whole machine (plugboard included) at its current settings,
+     *  without advancing anything. */
+    void composite(int[] dest) {
+        for (int c = 0; c < dest.length; c += 1) {
+            dest[c] = _plugboard.permuteUnchecked(
+                    scramble(_plugboard.permuteUnchecked(c)));
+        }
+    }
 
+    /** Turn caching of composite permutations on if ENABLED, and off
+     *  otherwise.  When on, convert(int) materializes the permutation
+     *  of the whole machine once for each rotor position it visits and
+     *  then converts with a single lookup.  Caching is only possible when
+     *  the settings of all but the rightmost rotor fit in a long key;
+     *  otherwise this request is ignored. */
+    void setCompositeCaching(boolean enabled) {
+        _compositeRows = null;
+        if (!enabled) {
+            _composites = null;
+        } else if (_composites == null
+                   && Math.pow(_alphabet.size(), _numRotors - 2)
+                      < Long.MAX_VALUE) {
+            _composites = new HashMap<>();
+        }
     }
 
+    /** Return true iff composite permutations are being cached. */
+    boolean compositeCaching() {
+        return _composites != null;
+    }
+
+    /** Forget all cached composite permutations, which must be done
+     *  whenever the rotors, their settings, or the plugboard change
+     *  other than by convert(int). */
+    private void clearComposites() {
+        _compositeRows = null;
+        if (_composites != null) {
+            _composites.clear();
+        }
+    }
+
+    /** Return the cached composite permutations for the current settings
+     *  of all but the rightmost rotor, indexed by the setting of the
+     *  rightmost rotor.  Rows are filled in lazily. */
+    private int[][] compositeRows() {
+        long key = 0;
+        for (int i = 1; i < _numRotors - 1; i += 1) {
+            key = key * _alphabet.size() + _settings[i];
+        }
+        int[][] rows = _composites.get(key);
+        if (rows == null) {
+            if (_composites.size() >= COMPOSITE_CACHE_LIMIT) {
+                _composites.clear();
+            }
+            rows = new int[_alphabet.size()][];
+            _composites.put(key, rows);
+        }
+        return rows;
+    }
 
     /** Returns the encoding/decoding of MSG, updating the state of
      *  the rotors accordingly. */
     String convert(String msg) {
-        String convert =  "";
-        for (int i = 0; i < msg.length(); i++) {
-            convert += _alphabet.toChar(
-                    convert(_alphabet.toInt(msg.charAt(i))));
+        char[] chars = msg.toCharArray();
+        convert(chars, 0, chars.length, chars);
+        return new String(chars);
+    }
+
+    /** Convert the LEN characters of IN starting at OFF, storing the
+     *  results at the same positions of OUT (which may be IN) and
+     *  updating the state of the rotors accordingly. */
+    void convert(char[] in, int off, int len, char[] out) {
+        for (int i = off; i < off + len; i += 1) {
+            out[i] = _alphabet.toChar(convert(_alphabet.toInt(in[i])));
         }
-        return convert;
     }
 
-    /** Returns all the rotors used. */
+    /** Convert the LEN bytes of IN starting at OFF, which must be ASCII
+     *  characters of my alphabet, storing the results at the same
+     *  positions of OUT (which may be IN) and updating the state of the
+     *  rotors accordingly.  My alphabet must be ASCII. */
+    void convert(byte[] in, int off, int len, byte[] out) {
+        if (_byteToIndex == null) {
+            compileBytes();
+        }
+        int[] toIndex = _byteToIndex;
+        byte[] toByte = _indexToByte;
+        for (int i = off; i < off + len; i += 1) {
+            int c = toIndex[in[i] & BYTE_MASK];
+            if (c < 0) {
+                throw error("character out of range: %c",
+                            (char) (in[i] & BYTE_MASK));
+            }
+            out[i] = toByte[convert(c)];
+        }
+    }
+
+    /** Build the tables translating between bytes and alphabet indices
+     *  used by convert(byte[], int, int, byte[]). */
+    private void compileBytes() {
+        if (!_alphabet.isAscii()) {
+            throw error("byte conversion needs an ASCII alphabet");
+        }
+        int[] toIndex = new int[BYTE_VALUES];
+        byte[] toByte = new byte[_alphabet.size()];
+        Arrays.fill(toIndex, -1);
+        for (int i = 0; i < _alphabet.size(); i += 1) {
+            toIndex[_alphabet.toChar(i)] = i;
+            toByte[i] = (byte) _alphabet.toChar(i);
+        }
+        _indexToByte = toByte;
+        _byteToIndex = toIndex;
+    }
+
+    /** Convert the remaining characters of IN, writing the results to
+     *  OUT, which must have at least as many characters remaining, and
+     *  updating the state of the rotors accordingly. */
+    void convert(CharBuffer in, CharBuffer out) {
+        int len = in.remaining();
+        if (out.remaining() < len) {
+            throw error("output buffer too small");
+        }
+        if (in.hasArray() && out.hasArray() && !out.isReadOnly()) {
+            char[] src = in.array(), dest = out.array();
+            int from = in.arrayOffset() + in.position();
+            int to = out.arrayOffset() + out.position();
+            for (int i = 0; i < len; i += 1) {
+                dest[to + i] =
+                    _alphabet.toChar(convert(_alphabet.toInt(src[from + i])));
+            }
+            in.position(in.position() + len);
+            out.position(out.position() + len);
+        } else {
+            while (in.hasRemaining()) {
+                out.put(_alphabet.toChar(convert(_alphabet.toInt(in.get()))));
+            }
+        }
+    }
+
+    /** Return the compiled forward tables of my rotors for their ring
+     *  settings, indexed by slot, then setting, then input.  They are
+     *  shared and must not be modified. */
+    int[][][] forwardTables() {
+        return _forward;
+    }
+
+    /** Return the compiled backward tables of my rotors, as for
+     *  forwardTables(). */
+    int[][][] backwardTables() {
+        return _backward;
+    }
+
+    /** Return my plugboard. */
+    Permutation plugboard() {
+        return _plugboard;
+    }
+
+    /** Returns copies of the rotors in my slots, each at its current
+     *  setting in me. */
     Rotor [] getRotors() {
-        return this._rotors;
+        Rotor[] result = new Rotor[_numRotors];
+        for (int i = 0; i < _numRotors; i += 1) {
+            if (_rotors[i] != null) {
+                result[i] = _rotors[i].copy();
+                result[i].set(_settings[i]);
+                result[i].setRing(_rings[i]);
+            }
+        }
+        return result;
     }
 
     /** Common alphabet of my rotors. */
@@ -158,13 +601,67 @@ class Machine {
     /** The number of pawls. */
     private int _pawls;
 
-    /** All the available rotors. */
+    /** The rotors in my slots, shared with my forks. */
     private Rotor [] _rotors;
 
+    /** The current setting of the rotor in each slot. */
+    private int[] _settings;
+
+    /** Scratch record of which rotors advance on the current keystroke,
+     *  kept so that convert(int) allocates nothing. */
+    private boolean[] _advance;
+
+    /** Composite permutations of the whole machine, keyed by the settings
+     *  of all but the rightmost rotor and then indexed by the setting of
+     *  the rightmost rotor, or null if caching is off. */
+    private HashMap<Long, int[][]> _composites;
+
+    /** The entry of _composites for the current settings, or null if it
+     *  has not been looked up since the settings last changed. */
+    private int[][] _compositeRows;
+
+    /** The settings of my rotors when they were last inserted or set. */
+    private int[] _origin;
+
+    /** The number of keystrokes since my rotors were last inserted or
+     *  set. */
+    private long _position;
+
+    /** Alphabet index of each byte value (-1 if it is not in the
+     *  alphabet), or null if not yet computed. */
+    private int[] _byteToIndex;
+
+    /** The byte for each alphabet index, or null if not yet computed. */
+    private byte[] _indexToByte;
+
     /** Plugboard. */
     private Permutation _plugboard;
 
     /** Collection of the available rotors. */
     private Collection<Rotor> _allRotors;
 
+    /** The available rotors, in the order of _allRotors. */
+    private final Rotor[] _available;
+
+    /** Maps each rotor name to the index in _available of the (first)
+     *  rotor with that name.  Shared with my forks. */
+    private final HashMap<String, Integer> _rotorIndex;
+
+    /** Scratch record of the indices in _available of the rotors being
+     *  inserted, kept so that duplicates are found without allocating. */
+    private BitSet _inUse;
+
+    /** The compiled forward tables of the rotors in each slot for their
+     *  ring settings, indexed by slot, then setting, then input. */
+    private int[][][] _forward;
+
+    /** The compiled backward tables of the rotors in each slot, indexed
+     *  by slot, then setting, then input. */
+    private int[][][] _backward;
+
+    /** The ring setting of the rotor in each slot, or null if no rotors
+     *  have been inserted.  Never modified once set, so it is shared
+     *  with forks. */
+    private int[] _rings;
+
 }
@@ -0,0 +1,175 @@
+package enigma;
+
+import static enigma.EnigmaException.*;
+
+/** Runs the rotors and plugboard of one machine from many starting
+ *  positions at once, so that one pass over a text converts it under
+ *  every position.  Each position is a lane.  The state of the lanes is
+ *  kept as structure of arrays: one int[] of settings for each slot,
+ *  indexed by lane.  Every step of a conversion is a loop over the
+ *  lanes that looks up each lane's character in a flattened table,
+ *  indexed by setting times alphabet size plus character.  Such loops
+ *  are the gathers a vector unit would perform, and have no branches
+ *  apart from stepping.  Each lane behaves exactly as a fork of the
+ *  machine restored to its settings and converted with convert(int).
+ *  @author Karina Patel
+ */
+class MachineLanes {
+
+    /** Lanes for the rotors, rings and plugboard now in BASE, whose rotors
+     *  must be inserted, with LANES lanes all at BASE's current
+     *  settings. */
+    MachineLanes(Machine base, int lanes) {
+        if (lanes < 1) {
+            throw error("need at least one lane");
+        }
+        Rotor[] rotors = base.getRotors();
+        if (rotors[0] == null) {
+            throw error("no rotors inserted");
+        }
+        int size = base.alphabet().size();
+        int slots = base.numRotors();
+        int[][][] forward = base.forwardTables();
+        int[][][] backward = base.backwardTables();
+        _size = size;
+        _lanes = lanes;
+        _forward = new int[slots][];
+        _backward = new int[slots][];
+        _notch = new boolean[slots][size];
+        _rotates = new boolean[slots];
+        _settings = new int[slots][lanes];
+        for (int j = 0; j < slots; j += 1) {
+            _forward[j] = flatten(forward[j]);
+            _backward[j] = flatten(backward[j]);
+            _rotates[j] = rotors[j].rotates();
+            for (int s = 0; s < size; s += 1) {
+                _notch[j][s] = rotors[j].atNotch(s);
+            }
+        }
+        _plugboard = new int[size];
+        for (int c = 0; c < size; c += 1) {
+            _plugboard[c] = base.plugboard().permute(c);
+        }
+        int[] start = base.snapshot();
+        for (int lane = 0; lane < lanes; lane += 1) {
+            restore(lane, start);
+        }
+    }
+
+    /** Return the number of lanes. */
+    int lanes() {
+        return _lanes;
+    }
+
+    /** Set the rotors of lane LANE to SETTINGS, indexed by slot as
+     *  returned by Machine.snapshot(). */
+    void restore(int lane, int[] settings) {
+        if (settings.length != _settings.length) {
+            throw error("wrong number of rotor settings");
+        }
+        for (int j = 0; j < settings.length; j += 1) {
+            _settings[j][lane] = settings[j];
+        }
+    }
+
+    /** Return the settings of the rotors of lane LANE, indexed by
+     *  slot. */
+    int[] snapshot(int lane) {
+        int[] result = new int[_settings.length];
+        for (int j = 0; j < result.length; j += 1) {
+            result[j] = _settings[j][lane];
+        }
+        return result;
+    }
+
+    /** Advance every lane as for one keystroke, then store in DEST[L]
+     *  the result of converting C (as an index) in lane L. */
+    void convert(int c, int[] dest) {
+        step();
+        int lanes = _lanes, size = _size;
+        int p = _plugboard[c];
+        for (int l = 0; l < lanes; l += 1) {
+            dest[l] = p;
+        }
+        for (int j = _settings.length - 1; j >= 0; j -= 1) {
+            int[] table = _forward[j], setting = _settings[j];
+            for (int l = 0; l < lanes; l += 1) {
+                dest[l] = table[setting[l] * size + dest[l]];
+            }
+        }
+        for (int j = 1; j < _settings.length; j += 1) {
+            int[] table = _backward[j], setting = _settings[j];
+            for (int l = 0; l < lanes; l += 1) {
+                dest[l] = table[setting[l] * size + dest[l]];
+            }
+        }
+        int[] plugboard = _plugboard;
+        for (int l = 0; l < lanes; l += 1) {
+            dest[l] = plugboard[dest[l]];
+        }
+    }
+
+    /** Advance every lane as for one keystroke.  A rotor advances if it
+     *  rotates and either is the rightmost, or the rotor to its right is
+     *  at a notch, or it is at a notch and the rotor to its left rotates.
+     *  Slots are done left to right, so each decision sees the settings
+     *  from before this keystroke. */
+    private void step() {
+        int last = _settings.length - 1;
+        int lanes = _lanes, size = _size;
+        for (int j = 1; j <= last; j += 1) {
+            if (!_rotates[j]) {
+                continue;
+            }
+            int[] setting = _settings[j];
+            if (j == last) {
+                for (int l = 0; l < lanes; l += 1) {
+                    setting[l] = setting[l] + 1 == size ? 0 : setting[l] + 1;
+                }
+                continue;
+            }
+            boolean[] right = _notch[j + 1], own = _notch[j];
+            int[] next = _settings[j + 1];
+            boolean pushed = _rotates[j - 1];
+            for (int l = 0; l < lanes; l += 1) {
+                if (right[next[l]] || pushed && own[setting[l]]) {
+                    setting[l] = setting[l] + 1 == size ? 0 : setting[l] + 1;
+                }
+            }
+        }
+    }
+
+    /** Return TABLE, indexed by setting and then input, as one array
+     *  indexed by setting times the alphabet size plus input. */
+    private int[] flatten(int[][] table) {
+        int[] result = new int[_size * _size];
+        for (int s = 0; s < _size; s += 1) {
+            System.arraycopy(table[s], 0, result, s * _size, _size);
+        }
+        return result;
+    }
+
+    /** The size of the alphabet. */
+    private final int _size;
+
+    /** The number of lanes. */
+    private final int _lanes;
+
+    /** The flattened forward and backward tables of each slot. */
+    private final int[][] _forward, _backward;
+
+    /** Whether the rotor in each slot is at a notch at each setting,
+     *  indexed by slot and then setting. */
+    private final boolean[][] _notch;
+
+    /** Whether the rotor in each slot rotates. */
+    private final boolean[] _rotates;
+
+    /** The setting of each slot in each lane, indexed by slot and then
+     *  lane. */
+    private final int[][] _settings;
+
+    /** The plugboard, as the index each index maps to. */
+    private final int[] _plugboard;
+
+}
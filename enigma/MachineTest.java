@@ -1,8 +1,10 @@
 package enigma;
 
+import java.nio.CharBuffer;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.Test;
 import org.junit.Rule;
 import org.junit.rules.Timeout;
@@ -69,6 +71,210 @@ public class MachineTest {
     }
 
 
+    @Test
+    public void testConvertArrays() {
+        setUPM(UPPER, 5, 3, testRotors);
+        machine.insertRotors(rots);
+        machine.setRotors("AXLE");
+        machine.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)",
+                UPPER));
+        String expected = machine.convert("FROMHISSHOULDERHIAWATHA");
+        char[] buf = "xxFROMHISSHOULDERHIAWATHAxx".toCharArray();
+        machine.setRotors("AXLE");
+        machine.convert(buf, 2, expected.length(), buf);
+        assertEquals("xx" + expected + "xx", new String(buf));
+
+        machine.setRotors("AXLE");
+        CharBuffer in = CharBuffer.wrap("FROMHISSHOULDERHIAWATHA");
+        CharBuffer out = CharBuffer.allocate(expected.length());
+        machine.convert(in, out);
+        out.flip();
+        assertEquals(expected, out.toString());
+    }
+
+    @Test
+    public void testConvertBytes() {
+        setUPM(UPPER, 5, 3, testRotors);
+        machine.insertRotors(rots);
+        machine.setRotors("AXLE");
+        String expected = machine.convert("FROMHISSHOULDERHIAWATHA");
+        byte[] buf = "..FROMHISSHOULDERHIAWATHA..".getBytes();
+        machine.setRotors("AXLE");
+        machine.convert(buf, 2, expected.length(), buf);
+        assertEquals(".." + expected + "..", new String(buf));
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testConvertBadByte() {
+        setUPM(UPPER, 5, 3, testRotors);
+        machine.insertRotors(rots);
+        machine.setRotors("AXLE");
+        byte[] buf = "FROM HIS".getBytes();
+        machine.convert(buf, 0, buf.length, buf);
+    }
+
+    @Test
+    public void testCompositeCaching() {
+        setUPM(UPPER, 5, 3, testRotors);
+        machine.insertRotors(rots);
+        machine.setRotors("AXLE");
+        machine.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)",
+                UPPER));
+        String msg = "FROMHISSHOULDERHIAWATHATOOKTHECAMERAOFROSEWOOD";
+        String expected = machine.convert(msg + msg + msg);
+        machine.setCompositeCaching(true);
+        assertTrue(machine.compositeCaching());
+        machine.setRotors("AXLE");
+        assertEquals(expected, machine.convert(msg + msg + msg));
+        machine.setRotors("AXLE");
+        assertEquals(expected, machine.convert(msg + msg + msg));
+        Machine plain = machine.fork();
+        plain.setCompositeCaching(false);
+        plain.setRotors("AXLF");
+        machine.setRotors("AXLF");
+        assertEquals(plain.convert(msg), machine.convert(msg));
+    }
+
+    @Test
+    public void testAdvanceAndSeek() {
+        setUPM(UPPER, 5, 3, testRotors);
+        machine.insertRotors(rots);
+        for (int n : new int[] {0, 1, 5, 26, 700, 17000}) {
+            machine.setRotors("AXLE");
+            for (int k = 0; k < n; k += 1) {
+                machine.convert(0);
+            }
+            String expected = getSetting(UPPER, machine.getRotors());
+            machine.setRotors("AXLE");
+            machine.advance(n);
+            assertEquals("advance " + n, expected,
+                         getSetting(UPPER, machine.getRotors()));
+            assertEquals(n, machine.position());
+            machine.seek(n / 2);
+            machine.seek(n);
+            assertEquals("seek " + n, expected,
+                         getSetting(UPPER, machine.getRotors()));
+        }
+    }
+
+    @Test
+    public void testParallelConvert() {
+        setUPM(UPPER, 5, 3, testRotors);
+        machine.insertRotors(rots);
+        machine.setRotors("AXLE");
+        StringBuilder msg = new StringBuilder();
+        for (int i = 0; i < 5000; i += 1) {
+            msg.append(UPPER_STRING.charAt((i * 7 + i / 26) % 26));
+        }
+        String expected = machine.convert(msg.toString());
+        String after = getSetting(UPPER, machine.getRotors());
+        machine.setRotors("AXLE");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelConverter parallel = new ParallelConverter(pool, 97);
+            assertEquals(expected,
+                         parallel.convert(machine, msg.toString()));
+            assertEquals(after, getSetting(UPPER, machine.getRotors()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testFork() {
+        setUPM(UPPER, 5, 3, testRotors);
+        machine.insertRotors(rots);
+        machine.setRotors("AXLE");
+        String msg = "FROMHISSHOULDERHIAWATHA";
+        int[] start = machine.snapshot();
+        Machine other = machine.fork();
+        Machine shared = new Machine(UPPER, 5, 3, testRotors);
+        shared.insertRotors(rots);
+        shared.setRotors("AXLE");
+        String expected = machine.convert(msg);
+        assertEquals(expected, other.convert(msg));
+        assertEquals(expected, shared.convert(msg));
+        machine.restore(start);
+        assertEquals(expected, machine.convert(msg));
+        assertArrayEquals(machine.snapshot(), other.snapshot());
+    }
+
+    @Test
+    public void testCopyState() {
+        setUPM(UPPER, 5, 3, testRotors);
+        machine.insertRotors(rots);
+        machine.setRotors("AXLE");
+        Machine other = new Machine(UPPER, 5, 3, testRotors);
+        other.copyState(machine);
+        String msg = "FROMHISSHOULDERHIAWATHA";
+        String expected = machine.convert(msg);
+        assertEquals(expected, other.convert(msg));
+        other.copyState(machine);
+        assertEquals(machine.position(), other.position());
+        assertArrayEquals(machine.snapshot(), other.snapshot());
+    }
+
+    @Test
+    public void testRings() {
+        setUPM(UPPER, 5, 3, testRotors);
+        machine.insertRotors(new String[] {"B", "BETA", "I", "II", "III"});
+        machine.setRotors("AAAA");
+        machine.setRings("ABBB");
+        assertEquals("EWTYX", machine.convert("AAAAA"));
+        assertEquals(1, machine.getRotors()[4].ring());
+        machine.setRotors("AAAA");
+        Machine other = machine.fork();
+        assertEquals("AAAAA", machine.convert("EWTYX"));
+        machine.setRings("AAAA");
+        machine.setRotors("AAAA");
+        assertEquals("BDZGO", machine.convert("AAAAA"));
+        assertEquals("EWTYX", other.convert("AAAAA"));
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testMissingRotor() {
+        setUPM(UPPER, 5, 3, testRotors);
+        machine.insertRotors(new String[] {"B", "BETA", "III", "IV", "IX"});
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testDuplicateRotor() {
+        setUPM(UPPER, 5, 3, testRotors);
+        machine.insertRotors(new String[] {"B", "BETA", "III", "IV", "IV"});
+    }
+
+    @Test
+    public void testLanes() {
+        setUPM(UPPER, 5, 3, testRotors);
+        machine.insertRotors(rots);
+        machine.setRings("BQZA");
+        machine.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)",
+                                             UPPER));
+        String text = "FROMHISSHOULDERHIAWATHATOOKTHECAMERAOFROSEWOOD";
+        MachineLanes lanes = new MachineLanes(machine, 40);
+        Machine[] forks = new Machine[lanes.lanes()];
+        for (int l = 0; l < forks.length; l += 1) {
+            int[] settings = {0, l % 26, 4, (l * 7) % 26, (l * 11) % 26};
+            if (l % 3 == 0) {
+                settings[3] = 9;
+            }
+            forks[l] = machine.fork();
+            forks[l].restore(settings);
+            lanes.restore(l, settings);
+        }
+        int[] out = new int[lanes.lanes()];
+        for (int k = 0; k < text.length(); k += 1) {
+            int c = UPPER.toInt(text.charAt(k));
+            lanes.convert(c, out);
+            for (int l = 0; l < forks.length; l += 1) {
+                assertEquals(forks[l].convert(c), out[l]);
+            }
+        }
+        for (int l = 0; l < forks.length; l += 1) {
+            assertArrayEquals(forks[l].snapshot(), lanes.snapshot(l));
+        }
+    }
+
     @Test
     public void testDoubleStep() {
         Alphabet ac = new CharacterRange('A', 'D');
@@ -86,11 +292,12 @@ public class MachineTest {
                 new ArrayList<>(Arrays.asList(machineRotors)));
         mach.insertRotors(rotors);
         mach.setRotors(setting);
-        assertEquals("AAAA", getSetting(ac, machineRotors));
+        assertEquals("AAAA", getSetting(ac, mach.getRotors()));
         mach.convert('a');
-        assertEquals("AAAB", getSetting(ac, machineRotors));
+        assertEquals("AAAB", getSetting(ac, mach.getRotors()));
         mach.convert('a');
-        assertEquals("AAAC", getSetting(ac, machineRotors));
+        assertEquals("AAAC", getSetting(ac, mach.getRotors()));
+        assertEquals("AAAA", getSetting(ac, machineRotors));
 
 
     }
@@ -1,12 +1,27 @@
 package enigma;
 
+import java.io.CharArrayWriter;
 import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import static enigma.EnigmaException.*;
@@ -17,14 +32,47 @@ import static enigma.EnigmaException.*;
 public final class Main {
 
     /** Process a sequence of encryptions and decryptions, as
-     *  specified by ARGS, where 1 <= ARGS.length <= 3.
+     *  specified by ARGS, where 1 <= ARGS.length <= 3 after any leading
+     *  options.
      *  ARGS[0] is the name of a configuration file.
      *  ARGS[1] is optional; when present, it names an input file
      *  containing messages.  Otherwise, input comes from the standard
      *  input.  ARGS[2] is optional; when present, it names an output
      *  file for processed messages.  Otherwise, output goes to the
      *  standard output. Exits normally if there are no errors in the input;
-     *  otherwise with code 1. */
+     *  otherwise with code 1.
+     *  The options are
+     *      --parallel   Convert long message lines on all cores.
+     *      --batch      Convert the messages following each settings line
+     *                   as a separate job, running jobs on all cores.
+     *      --mmap       Map the input file (ARGS[1]) into memory and write
+     *                   the output file (ARGS[2]) directly from bytes,
+     *                   which needs an ASCII alphabet.
+     *      --config-cache  Keep a compiled copy of the configuration next
+     *                   to it (see CompiledConfig) and use that copy while
+     *                   the configuration is unchanged.
+     *      --search     Instead, find the keys under which a crib
+     *                   enciphers as a ciphertext (see KeySearch).  The
+     *                   input holds an optional settings line, whose
+     *                   plugboard is used, then the ciphertext on one
+     *                   line and the crib, which enciphers as the start
+     *                   of the ciphertext, on the next.  The output gives
+     *                   a settings line for each key found.
+     *      --bombe      Like --search, but with an unknown plugboard:
+     *                   find the stops of a bombe (see Bombe), each
+     *                   given with the plugboard pairs it implies.
+     *      --solve CORPUS  Instead, find likely keys for the ciphertext on
+     *                   the first message line of the input, with no
+     *                   crib (see HillClimber), scoring decryptions by
+     *                   the bigrams and quadgrams of the text in file
+     *                   CORPUS.  The output gives a settings line and
+     *                   the decryption for each of the best few keys.
+     *                   The tables are saved next to CORPUS and mapped
+     *                   into memory by later runs (see NGramTable).
+     *      --serve      Instead, run as a server: ARGS[0] is a port and the
+     *                   remaining arguments name configuration files, which
+     *                   are loaded once and used to answer requests (see
+     *                   Server).  */
     public static void main(String... args) {
         try {
             new Main(args).process();
@@ -37,25 +85,121 @@ public final class Main {
 
     /** Check ARGS and open the necessary files (see comment on main). */
     Main(String[] args) {
+        args = readOptions(args);
+        if (_serving) {
+            readServerArgs(args);
+            return;
+        }
         if (args.length < 1 || args.length > 3) {
             throw error("Only 1, 2, or 3 command-line arguments allowed");
         }
 
+        _configName = args[0];
         _config = getInput(args[0]);
 
+        if (_mapped) {
+            if (args.length != 3) {
+                throw error("--mmap needs both input and output files");
+            }
+            _inputName = args[1];
+            _outputName = args[2];
+            return;
+        }
+
         if (args.length > 1) {
-            _input = getInput(args[1]);
+            _input = getMessages(args[1]);
+            _ownsInput = true;
         } else {
-            _input = new Scanner(System.in);
+            _input = new MessageReader(new InputStreamReader(System.in));
         }
 
         if (args.length > 2) {
             _output = getOutput(args[2]);
+            _ownsOutput = true;
         } else {
-            _output = System.out;
+            _output = new GroupWriter(new OutputStreamWriter(System.out));
+        }
+    }
+
+    /** A Main that applies the configuration in the file named CONFIG to
+     *  the messages given to translate, rather than to files of its own.
+     *  Its rotors are compiled immediately. */
+    Main(String config) {
+        _config = getInput(config);
+        _base = readConfig();
+        _base.compileRotors();
+    }
+
+    /** Set up _server from ARGS, a port followed by the names of
+     *  configuration files. */
+    private void readServerArgs(String[] args) {
+        if (args.length < 2) {
+            throw error("--serve needs a port and configuration files");
+        }
+        try {
+            _server = new Server(Integer.parseInt(args[0]));
+        } catch (NumberFormatException excp) {
+            throw error("bad port number: %s", args[0]);
+        }
+        for (int i = 1; i < args.length; i += 1) {
+            _server.add(args[i], new Main(args[i]));
         }
     }
 
+    /** Apply my configuration to the messages read from INPUT as
+     *  process() would, sending the results to OUTPUT.  May be called
+     *  from several threads at once. */
+    void translate(Reader input, Writer output) {
+        GroupWriter out = new GroupWriter(output);
+        try {
+            processSerial(_base.fork(), new MessageReader(input), out);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /** Record the options at the start of ARGS, returning the remaining
+     *  arguments. */
+    private String[] readOptions(String[] args) {
+        int k;
+        for (k = 0; k < args.length && args[k].startsWith("--"); k += 1) {
+            switch (args[k]) {
+            case "--parallel":
+                _parallel = new ParallelConverter();
+                break;
+            case "--config-cache":
+                _cacheConfig = true;
+                break;
+            case "--serve":
+                _serving = true;
+                break;
+            case "--search":
+                _searching = true;
+                break;
+            case "--bombe":
+                _searching = _bombe = true;
+                break;
+            case "--solve":
+                k += 1;
+                if (k == args.length) {
+                    throw error("--solve needs a corpus file");
+                }
+                _corpusName = args[k];
+                break;
+            case "--mmap":
+                _mapped = true;
+                break;
+            case "--batch":
+                _batch = Executors.newFixedThreadPool(
+                        Runtime.getRuntime().availableProcessors());
+                break;
+            default:
+                throw error("unknown option: %s", args[k]);
+            }
+        }
+        return Arrays.copyOfRange(args, k, args.length);
+    }
+
     /** Return a Scanner reading from the file named NAME. */
     private Scanner getInput(String name) {
         try {
@@ -65,10 +209,19 @@ public final class Main {
         }
     }
 
-    /** Return a PrintStream writing to the file named NAME. */
-    private PrintStream getOutput(String name) {
+    /** Return a MessageReader reading from the file named NAME. */
+    private MessageReader getMessages(String name) {
         try {
-            return new PrintStream(new File(name));
+            return new MessageReader(new FileReader(name));
+        } catch (IOException excp) {
+            throw error("could not open %s", name);
+        }
+    }
+
+    /** Return a GroupWriter writing to the file named NAME. */
+    private GroupWriter getOutput(String name) {
+        try {
+            return new GroupWriter(new FileWriter(name));
         } catch (IOException excp) {
             throw error("could not open %s", name);
         }
@@ -76,35 +229,238 @@ public final class Main {
 
     /** Configure an Enigma machine from the contents of configuration
      *  file _config and apply it to the messages in _input, sending the
-     *  results to _output. */
-    private void process() {
+     *  results to _output, closing any files I opened. */
+    void process() {
+        if (_server != null) {
+            _server.serve();
+            return;
+        }
+        if (_mapped) {
+            new MappedProcessor(readConfig(), _alphabet, _inputName,
+                                _outputName, this::setUp).process();
+            return;
+        }
+        try {
+            Machine enigma = readConfig();
+            if (_corpusName != null) {
+                solve(enigma);
+            } else if (_searching) {
+                search(enigma);
+            } else if (_batch != null) {
+                try {
+                    processBatch(enigma);
+                } finally {
+                    _batch.shutdownNow();
+                }
+            } else {
+                processSerial(enigma, _input, _output);
+            }
+        } finally {
+            if (_ownsInput) {
+                _input.close();
+            }
+            if (_ownsOutput) {
+                _output.close();
+            } else {
+                _output.flush();
+            }
+        }
+    }
 
-        Machine enigma = readConfig();
-        String setting = _input.nextLine();
-        setUp(enigma, setting);
+    /** Search for the keys of BASE that encipher the crib in _input as
+     *  the ciphertext in _input, with the bombe if _bombe and otherwise
+     *  with KeySearch, writing a settings line for each to _output, and
+     *  report the rate of search on the standard error. */
+    private void search(Machine base) {
+        if (!_input.nextLine()) {
+            throw error("no ciphertext in input");
+        }
+        if (_input.isSettings()) {
+            setUp(base, _input.line());
+            if (!_input.nextLine()) {
+                throw error("no ciphertext in input");
+            }
+        }
+        String ciphertext = new String(_input.message(), 0,
+                                       _input.messageLength());
+        if (!_input.nextLine() || _input.isSettings()) {
+            throw error("no crib in input");
+        }
+        String crib = new String(_input.message(), 0,
+                                 _input.messageLength());
+        base.compileRotors();
+        List<KeySearch.Match> found;
+        if (_bombe) {
+            Bombe bombe = new Bombe(base);
+            found = bombe.run(ciphertext, crib);
+            System.err.printf("%d rotor orders, %d positions in %.3f s "
+                              + "(%.0f positions/s)%n",
+                              bombe.numOrders(), bombe.positions(),
+                              bombe.elapsedNanos() / 1e9,
+                              bombe.positionsPerSecond());
+        } else {
+            KeySearch search = new KeySearch(base);
+            found = search.search(ciphertext, crib);
+            System.err.printf("%d rotor orders, %d candidates in %.3f s "
+                              + "(%.0f candidates/s)%n",
+                              search.numOrders(), search.candidates(),
+                              search.elapsedNanos() / 1e9,
+                              search.candidatesPerSecond());
+        }
+        for (KeySearch.Match match : found) {
+            char[] line = match.toString().toCharArray();
+            _output.writeUngrouped(line, 0, line.length);
+            _output.newLine();
+        }
+    }
 
+    /** Find likely keys of BASE for the ciphertext in _input with a
+     *  HillClimber scoring by the n-grams of _corpusName, writing a
+     *  settings line and decryption for each of the best SOLUTIONS_SHOWN
+     *  to _output, and report the rate of search on the standard
+     *  error. */
+    private void solve(Machine base) {
+        if (!_input.nextLine() || _input.isSettings()) {
+            throw error("no ciphertext in input");
+        }
+        String ciphertext = new String(_input.message(), 0,
+                                       _input.messageLength());
+        NGramTable[] tables = new NGramTable[SOLVE_NGRAMS.length];
+        for (int i = 0; i < tables.length; i += 1) {
+            tables[i] = NGramTable.load(base.alphabet(), SOLVE_NGRAMS[i],
+                                        _corpusName);
+        }
+        base.compileRotors();
+        HillClimber climber = new HillClimber(base, tables);
+        List<KeySearch.Match> found = climber.solve(ciphertext);
+        System.err.printf("%d positions in %.3f s (%.0f positions/s)%n",
+                          climber.positions(),
+                          climber.elapsedNanos() / 1e9,
+                          climber.positionsPerSecond());
+        for (int i = 0; i < found.size() && i < SOLUTIONS_SHOWN; i += 1) {
+            char[] line = found.get(i).toString().toCharArray();
+            _output.writeUngrouped(line, 0, line.length);
+            _output.newLine();
+            Machine M = base.fork();
+            setUp(M, found.get(i).toString());
+            char[] msg = ciphertext.toCharArray();
+            convertMessage(M, msg, msg.length);
+            printMessageLine(_output, msg, msg.length);
+        }
+    }
 
-        while (_input.hasNextLine()) {
-            String next = _input.nextLine().trim();
-            if (next.isEmpty()) {
-                _output.println();
-            } else if (next.indexOf('*') >= 0) {
-                setUp(enigma, next);
+    /** Apply ENIGMA to the messages in INPUT one line at a time,
+     *  sending the results to OUTPUT. */
+    private void processSerial(Machine enigma, MessageReader input,
+                               GroupWriter output) {
+        if (!input.nextLine()) {
+            throw error("no settings line in input");
+        }
+        setUp(enigma, input.line());
+
+
+        while (input.nextLine()) {
+            if (input.isBlank()) {
+                output.newLine();
+            } else if (input.isSettings()) {
+                setUp(enigma, input.line());
             } else {
-                next = next.replaceAll(" ", "");
-                next = next.toUpperCase();
-                printMessageLine(enigma.convert(next));
+                char[] msg = input.message();
+                int len = input.messageLength();
+                convertMessage(enigma, msg, len);
+                printMessageLine(output, msg, len);
+            }
+        }
+    }
+
+    /** Apply BASE to the messages in _input as process() does, but treat
+     *  each settings line and the lines up to the next one as a separate
+     *  job for _batch.  Results are sent to _output in their original
+     *  order, stopping at the first job that fails. */
+    private void processBatch(Machine base) {
+        ArrayDeque<Future<Job>> pending = new ArrayDeque<>();
+        if (!_input.nextLine()) {
+            throw error("no settings line in input");
+        }
+        String settings = _input.line();
+        while (settings != null) {
+            ArrayList<char[]> lines = new ArrayList<>();
+            String next = null;
+            while (next == null && _input.nextLine()) {
+                if (_input.isSettings()) {
+                    next = _input.line();
+                } else {
+                    lines.add(Arrays.copyOf(_input.message(),
+                                            _input.messageLength()));
+                }
             }
+            Job job = new Job(base, settings, lines);
+            pending.add(_batch.submit(job::run, job));
+            while (pending.size() > MAX_PENDING_JOBS) {
+                writeJob(pending.remove());
+            }
+            settings = next;
+        }
+        while (!pending.isEmpty()) {
+            writeJob(pending.remove());
+        }
+    }
+
+    /** Wait for JOB to finish and send its output to _output, rethrowing
+     *  any error it encountered. */
+    private void writeJob(Future<Job> job) {
+        Job done;
+        try {
+            done = job.get();
+        } catch (InterruptedException | ExecutionException excp) {
+            throw error("batch job failed: %s", excp.getMessage());
+        }
+        char[] text = done._text.toCharArray();
+        _output.writeUngrouped(text, 0, text.length);
+        if (done._error != null) {
+            throw done._error;
+        }
+    }
+
+    /** Convert the first LEN characters of MSG with M in place. */
+    private void convertMessage(Machine M, char[] msg, int len) {
+        if (_parallel != null) {
+            _parallel.convert(M, msg, 0, len, msg);
+        } else {
+            M.convert(msg, 0, len, msg);
         }
     }
 
     /** Return an Enigma machine configured from the contents of configuration
-     *  file _config. */
-    private Machine readConfig() {
+     *  file _config, or from its compiled form if --config-cache was given
+     *  and the compiled form is up to date.  Closes _config. */
+    Machine readConfig() {
+        try {
+            if (!_cacheConfig) {
+                return parseConfig();
+            }
+            String cache = _configName + CompiledConfig.SUFFIX;
+            byte[] digest = CompiledConfig.digest(_configName);
+            Machine result = CompiledConfig.read(cache, digest);
+            if (result != null) {
+                _alphabet = result.alphabet();
+            } else {
+                result = parseConfig();
+                CompiledConfig.write(cache, digest, result);
+            }
+            return result;
+        } finally {
+            _config.close();
+        }
+    }
+
+    /** Return an Enigma machine configured by parsing the contents of
+     *  configuration file _config. */
+    private Machine parseConfig() {
         try {
 
             String alphabetString;
-            if (_config.hasNext(Pattern.compile("[\\w-]+"))) {
+            if (_config.hasNext(ALPHABET_PATTERN)) {
                 alphabetString = _config.next();
                 if (alphabetString.indexOf('-') >= 0) {
                     char C1 = alphabetString.charAt(0);
@@ -117,7 +473,7 @@ public final class Main {
                     }
                     _alphabet = new CharacterRange(C1, C2);
                 } else {
-                    _alphabet = new CharacterConfiguration(alphabetString);
+                    _alphabet = Alphabet.of(alphabetString);
                 }
             } else {
                 throw error("Improperly formatted "
@@ -159,7 +515,7 @@ public final class Main {
         try {
 
             String name;
-            if (_config.hasNext(Pattern.compile("[^\\s()]+"))) {
+            if (_config.hasNext(NAME_PATTERN)) {
                 name = _config.next().toUpperCase();
             } else {
                 throw error("Improperly formatted "
@@ -168,7 +524,7 @@ public final class Main {
 
 
             String type;
-            if (_config.hasNext(Pattern.compile("[RNM]\\w*"))) {
+            if (_config.hasNext(TYPE_PATTERN)) {
                 type = _config.next();
             } else {
                 throw error("Improperly formatted "
@@ -177,8 +533,8 @@ public final class Main {
 
 
             String cycles = "";
-            while (_config.hasNext(Pattern.compile("\\(\\w+\\)"))
-                    || _config.hasNext(Pattern.compile("\\([\\w()]+\\)"))) {
+            while (_config.hasNext(CYCLE_PATTERN)
+                    || _config.hasNext(CYCLES_PATTERN)) {
                 String cycle = _config.next();
                 cycle = cycle.replace(")(", ") (");
 
@@ -206,94 +562,186 @@ public final class Main {
     }
 
     /** Set M according to the specification given on SETTINGS,
-     *  which must have the format specified in the assignment. */
+     *  which must have the format specified in the assignment.  Since
+     *  the same settings lines tend to recur, the machines they produce
+     *  are kept in _prepared and copied into M when seen again. */
     private void setUp(Machine M, String settings) {
-        String[] settingsSplit = settings.toUpperCase().split("[\\s\\t\\n]+");
-
-
-        if (settingsSplit.length == 0) {
-            throw error("No setting detected.");
-        }
-
-        if (settingsSplit.length - 1 < M.numRotors()) {
-            throw new EnigmaException("Length of settings string, "
-                    + "doesn't match number of settable rotors");
+        Machine prepared;
+        synchronized (_prepared) {
+            prepared = _prepared.get(settings);
         }
-
-        if (!settingsSplit[0].equals("*")) {
-            throw error("No valid setting detected. Must start with a *.");
+        if (prepared == null) {
+            SettingsLine line = new SettingsLine(settings, M.numRotors(),
+                                                M.alphabet());
+            prepared = M.fork();
+            prepared.setCompositeCaching(false);
+            prepared.insertRotors(line.rotors());
+            prepared.setRotors(line.positions());
+            if (line.rings() != null) {
+                prepared.setRings(line.rings());
+            }
+            prepared.setPlugboard(new Permutation(line.cycles(), _alphabet));
+            synchronized (_prepared) {
+                _prepared.put(settings, prepared);
+            }
         }
+        M.copyState(prepared);
+    }
 
-        if (settingsSplit.length < M.numRotors() + 2) {
-            throw error("No valid setting detected. Too few elements.");
+    /** Print the first LEN characters of MSG on OUT in groups of five
+     *  (except that the last group may have fewer letters). */
+    private void printMessageLine(GroupWriter out, char[] msg, int len) {
+        if (msg == null || len == 0) {
+            throw error("Final output message is null or empty.");
         }
+        out.write(msg, 0, len);
+        out.newLine();
+    }
 
+    /** The messages following one settings line, converted as a unit of
+     *  a batch. */
+    private class Job {
 
-        int index = 0;
-        String[] rotors = new String[M.numRotors()];
-        while (index < M.numRotors() && settingsSplit[index + 1].
-                matches(Pattern.compile("[^\\s()]+").pattern())) {
-            String name = settingsSplit[index + 1];
-            rotors[index] = name;
-            index++;
-        }
-        if (index != M.numRotors()) {
-            throw error("Improperly formatted rotor names in settings.");
+        /** A job applying the settings line SETTINGS to a fork of BASE and
+         *  converting the message lines LINES that follow it. */
+        Job(Machine base, String settings, List<char[]> lines) {
+            _base = base;
+            _settings = settings;
+            _lines = lines;
         }
 
-
-        index = M.numRotors() + 1;
-        String setting = settingsSplit[index];
-        if (!setting.matches(Pattern.compile("\\w+").pattern())) {
-            throw error("Improperly formatted rotor setting in settings.");
+        /** Convert my lines, recording the output and any error. */
+        void run() {
+            GroupWriter writer = new GroupWriter(_text, JOB_BUFFER_SIZE);
+            try {
+                Machine M = _base.fork();
+                setUp(M, _settings);
+                for (char[] msg : _lines) {
+                    if (msg.length > 0) {
+                        convertMessage(M, msg, msg.length);
+                        printMessageLine(writer, msg, msg.length);
+                    } else {
+                        writer.newLine();
+                    }
+                }
+            } catch (EnigmaException excp) {
+                _error = excp;
+            } finally {
+                writer.flush();
+            }
         }
 
+        /** The machine whose forks I use. */
+        private final Machine _base;
 
-        index = M.numRotors() + 2;
-        String cycles = "";
-        while (index < settingsSplit.length
-                && (settingsSplit[index].
-                        matches(Pattern.compile("\\(\\w+\\)").pattern())
-                        || settingsSplit[index].matches(Pattern.
-                        compile("\\([\\w()]+\\)").pattern()))) {
-            String cycle = settingsSplit[index];
-            cycle = cycle.replace(")(", ") (");
-            cycles = cycles + " " + cycle;
-            index++;
-        }
+        /** My settings line. */
+        private final String _settings;
 
+        /** The message lines following my settings line, stripped of
+         *  whitespace and upper-cased, with blank lines empty. */
+        private final List<char[]> _lines;
 
-        M.insertRotors(rotors);
-        M.setRotors(setting);
-        M.setPlugboard(new Permutation(cycles, _alphabet));
-    }
+        /** My output so far. */
+        private final CharArrayWriter _text = new CharArrayWriter();
 
-    /** Print MSG in groups of five (except that the last group may
-     *  have fewer letters). */
-    private void printMessageLine(String msg) {
-        if (msg == null || msg.length() == 0) {
-            throw error("Final output message is null or empty.");
-        } else {
-            msg = msg.replaceAll(" ", "");
-            String temp = "";
-            while (msg.length() >= 6) {
-                temp += msg.substring(0, 5) + " ";
-                msg = msg.substring(5);
-            }
-            temp += msg;
-            _output.println(temp);
-        }
+        /** The error that stopped me, if any. */
+        private EnigmaException _error;
     }
 
     /** Alphabet used in this machine. */
     private Alphabet _alphabet;
 
     /** Source of input messages. */
-    private Scanner _input;
+    private MessageReader _input;
+
+    /** Machines prepared from recently seen settings lines, by line,
+     *  least recently used first. */
+    private final LinkedHashMap<String, Machine> _prepared =
+        new LinkedHashMap<String, Machine>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, Machine> eldest) {
+                return size() > PREPARED_SETTINGS;
+            }
+        };
 
     /** Source of machine configuration. */
     private Scanner _config;
 
+    /** Name of the configuration file. */
+    private String _configName;
+
+    /** True iff searching for keys rather than converting messages. */
+    private boolean _searching;
+
+    /** Name of the corpus scoring decryptions for --solve, or null if
+     *  not solving. */
+    private String _corpusName;
+
+    /** True iff searching with the bombe. */
+    private boolean _bombe;
+
+    /** True iff the configuration is to be cached in compiled form. */
+    private boolean _cacheConfig;
+
     /** File for encoded/decoded messages. */
-    private PrintStream _output;
+    private GroupWriter _output;
+
+    /** True iff _input reads from a file that I opened, and so must
+     *  close. */
+    private boolean _ownsInput;
+
+    /** True iff _output writes to a file that I opened, and so must
+     *  close; standard output is only flushed. */
+    private boolean _ownsOutput;
+
+    /** The machine configured by my configuration file, if it is read
+     *  when I am created. */
+    private Machine _base;
+
+    /** True iff I am to run as a server. */
+    private boolean _serving;
+
+    /** The server I run, or null if I am not a server. */
+    private Server _server;
+
+    /** True iff the input file is to be processed by mapping it into
+     *  memory. */
+    private boolean _mapped;
+
+    /** Names of the input and output files in memory-mapped mode. */
+    private String _inputName, _outputName;
+
+    /** Converter used to spread long messages over several threads, or
+     *  null if messages are converted serially. */
+    private ParallelConverter _parallel;
+
+    /** Threads on which batch jobs run, or null if not in batch mode. */
+    private ExecutorService _batch;
+
+    /** Maximum number of batch jobs read ahead of the output. */
+    static final int MAX_PENDING_JOBS = 1024;
+
+    /** Size of the buffer of the writer each batch job uses while it
+     *  runs, which need not be large since its output goes to memory. */
+    private static final int JOB_BUFFER_SIZE = 1 << 10;
+
+    /** Patterns for the parts of a configuration file: the alphabet, a
+     *  rotor name, a rotor type, and one or several adjoining cycles. */
+    private static final Pattern
+        ALPHABET_PATTERN = Pattern.compile("[\\w-]+"),
+        NAME_PATTERN = Pattern.compile("[^\\s()]+"),
+        TYPE_PATTERN = Pattern.compile("[RNM]\\w*"),
+        CYCLE_PATTERN = Pattern.compile("\\(\\w+\\)"),
+        CYCLES_PATTERN = Pattern.compile("\\([\\w()]+\\)");
+
+    /** Largest number of settings lines whose machines are kept. */
+    private static final int PREPARED_SETTINGS = 256;
+
+    /** Lengths of the n-grams by which --solve scores decryptions, in
+     *  the order used. */
+    private static final int[] SOLVE_NGRAMS = { 2, 4 };
+
+    /** Number of keys whose decryptions --solve writes. */
+    private static final int SOLUTIONS_SHOWN = 3;
 }
@@ -0,0 +1,84 @@
+package enigma;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+import static enigma.TestUtils.*;
+
+/** The suite of all JUnit tests for the Main class.
+ *  @author Karina Patel
+ */
+public class MainTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /* ***** TESTING UTILITIES ***** */
+
+    /** Return the contents of FILE. */
+    private byte[] contents(File file) throws IOException {
+        return Files.readAllBytes(file.toPath());
+    }
+
+    /** Return input with BLOCKS settings lines, each followed by a few
+     *  message lines and a blank line.  If BAD is in [0, BLOCKS), the
+     *  settings line of block BAD names a missing rotor. */
+    private String blocks(int blocks, int bad) {
+        StringBuilder result = new StringBuilder();
+        for (int b = 0; b < blocks; b += 1) {
+            char c = (char) ('A' + b % 26);
+            String rotors = b == bad ? "B BETA I II IV" : "B BETA I II III";
+            result.append("* ").append(rotors).append(" ")
+                .append("A").append(c).append("A").append(c)
+                .append(b % 2 == 0 ? " (AQ) (EP)\n" : "\n")
+                .append("Hello world number ").append(c).append("\n")
+                .append("the quick brown fox\n\n");
+        }
+        return result.toString();
+    }
+
+    /** Run Main with OPTIONS on the configuration CONFIG and the
+     *  input file INPUT, writing to OUTPUT. */
+    private void run(String options, File config, File input, File output) {
+        String files =
+            config.getPath() + " " + input.getPath() + " " + output.getPath();
+        String args = options.isEmpty() ? files : options + " " + files;
+        new Main(args.split(" ")).process();
+    }
+
+    /* ***** TESTS ***** */
+
+    @Test
+    public void testBatchMatchesSerial() throws IOException {
+        File config = tempFile(CONFIG);
+        File input = tempFile(blocks(Main.MAX_PENDING_JOBS + 100, -1));
+        File serial = tempFile(""), batch = tempFile("");
+        run("", config, input, serial);
+        run("--batch", config, input, batch);
+        assertTrue(contents(serial).length > 0);
+        assertArrayEquals(contents(serial), contents(batch));
+    }
+
+    @Test
+    public void testBatchStopsAtError() throws IOException {
+        File config = tempFile(CONFIG);
+        File good = tempFile(blocks(40, -1));
+        File bad = tempFile(blocks(100, 40));
+        File expected = tempFile(""), batch = tempFile("");
+        run("", config, good, expected);
+        try {
+            run("--batch", config, bad, batch);
+            fail("bad settings line not reported");
+        } catch (EnigmaException excp) {
+            assertTrue(excp.getMessage().contains("rotor IV not found"));
+        }
+        assertArrayEquals(contents(expected), contents(batch));
+    }
+
+}
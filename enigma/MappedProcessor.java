@@ -0,0 +1,225 @@
+package enigma;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+
+import static enigma.EnigmaException.*;
+
+/** Applies an Enigma machine to a file of messages by mapping the file
+ *  into memory and working directly on its bytes, which is possible when
+ *  every character of the alphabet is ASCII.  The output, which is the
+ *  same as Main produces for the same input, is written to a file
+ *  through a direct buffer.
+ *  @author Karina Patel
+ */
+class MappedProcessor {
+
+    /** Largest part of the input mapped at once. */
+    static final int WINDOW_SIZE = 1 << 30;
+
+    /** Size of the output buffer. */
+    static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+
+    /** A processor that applies forks of BASE, whose alphabet is
+     *  ALPHABET, to the messages in the file named INPUT, writing the
+     *  results to the file named OUTPUT.  Settings lines are applied to
+     *  the current machine with SETUP. */
+    MappedProcessor(Machine base, Alphabet alphabet, String input,
+                    String output, BiConsumer<Machine, String> setUp) {
+        this(base, alphabet, input, output, setUp, WINDOW_SIZE);
+    }
+
+    /** A processor as above that maps at most WINDOWSIZE bytes of the
+     *  input at once. */
+    MappedProcessor(Machine base, Alphabet alphabet, String input,
+                    String output, BiConsumer<Machine, String> setUp,
+                    int windowSize) {
+        if (!alphabet.isAscii()) {
+            throw error("memory-mapped mode needs an ASCII alphabet");
+        }
+        _machine = base.fork();
+        _inputName = input;
+        _outputName = output;
+        _setUp = setUp;
+        _windowSize = windowSize;
+        _line = new byte[INITIAL_LINE_SIZE];
+    }
+
+    /** Process the whole input file. */
+    void process() {
+        try (FileChannel in = FileChannel.open(Paths.get(_inputName),
+                                               StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(Paths.get(_outputName),
+                     StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            _out = out;
+            _buffer = ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE);
+            try {
+                processChannel(in);
+            } finally {
+                drain();
+            }
+        } catch (IOException excp) {
+            throw error("could not process %s: %s", _inputName,
+                        excp.getMessage());
+        }
+    }
+
+    /** Process every line of IN, mapping it one window at a time. */
+    private void processChannel(FileChannel in) throws IOException {
+        long size = in.size();
+        long start = 0;
+        _first = true;
+        while (start < size) {
+            long len = Math.min(_windowSize, size - start);
+            MappedByteBuffer window =
+                in.map(FileChannel.MapMode.READ_ONLY, start, len);
+            int done = processWindow(window, (int) len, start + len == size);
+            if (done == 0) {
+                throw error("input line too long to map");
+            }
+            start += done;
+        }
+        if (_first) {
+            throw error("no settings line in input");
+        }
+    }
+
+    /** Process the complete lines among the first LEN bytes of WINDOW,
+     *  which ends the input iff LAST.  Returns the number of bytes
+     *  consumed. */
+    private int processWindow(ByteBuffer window, int len, boolean last) {
+        int lineStart = 0;
+        while (lineStart < len) {
+            int end = lineStart;
+            while (end < len && window.get(end) != '\n'
+                   && window.get(end) != '\r') {
+                end += 1;
+            }
+            int next;
+            if (end < len && window.get(end) == '\r') {
+                if (end + 1 < len) {
+                    next = window.get(end + 1) == '\n' ? end + 2 : end + 1;
+                } else if (last) {
+                    next = end + 1;
+                } else {
+                    return lineStart;
+                }
+            } else if (end < len) {
+                next = end + 1;
+            } else if (last) {
+                next = end;
+            } else {
+                return lineStart;
+            }
+            processLine(window, lineStart, end);
+            lineStart = next;
+        }
+        return lineStart;
+    }
+
+    /** Process the line occupying bytes START .. END-1 of WINDOW. */
+    private void processLine(ByteBuffer window, int start, int end) {
+        boolean settings = _first;
+        int len = 0;
+        if (_line.length < end - start) {
+            _line = new byte[Math.max(end - start, 2 * _line.length)];
+        }
+        for (int i = start; i < end; i += 1) {
+            byte b = window.get(i);
+            if (b == '*') {
+                settings = true;
+            } else if (b >= 'a' && b <= 'z') {
+                _line[len] = (byte) (b + 'A' - 'a');
+                len += 1;
+            } else if (b < 0 || b > ' ') {
+                _line[len] = b;
+                len += 1;
+            }
+        }
+        _first = false;
+        if (settings) {
+            byte[] text = new byte[end - start];
+            window.get(start, text);
+            _setUp.accept(_machine, new String(text, Charset.defaultCharset())
+                          .trim());
+        } else if (len == 0) {
+            newLine();
+        } else {
+            _machine.convert(_line, 0, len, _line);
+            for (int i = 0; i < len; i += 1) {
+                if (i > 0 && i % GroupWriter.GROUP_SIZE == 0) {
+                    put((byte) ' ');
+                }
+                put(_line[i]);
+            }
+            newLine();
+        }
+    }
+
+    /** Write a line separator. */
+    private void newLine() {
+        for (int i = 0; i < NEWLINE.length; i += 1) {
+            put(NEWLINE[i]);
+        }
+    }
+
+    /** Add B to the output buffer, writing the buffer if it is full. */
+    private void put(byte b) {
+        if (!_buffer.hasRemaining()) {
+            drain();
+        }
+        _buffer.put(b);
+    }
+
+    /** Write out and empty the output buffer. */
+    private void drain() {
+        try {
+            _buffer.flip();
+            while (_buffer.hasRemaining()) {
+                _out.write(_buffer);
+            }
+            _buffer.clear();
+        } catch (IOException excp) {
+            throw error("could not write %s", _outputName);
+        }
+    }
+
+    /** Initial size of the line buffer. */
+    private static final int INITIAL_LINE_SIZE = 256;
+
+    /** The line separator, as bytes. */
+    private static final byte[] NEWLINE =
+        System.lineSeparator().getBytes(Charset.defaultCharset());
+
+    /** The machine doing the conversion. */
+    private final Machine _machine;
+
+    /** Names of the input and output files. */
+    private final String _inputName, _outputName;
+
+    /** Applies a settings line to a machine. */
+    private final BiConsumer<Machine, String> _setUp;
+
+    /** Largest part of the input mapped at once. */
+    private final int _windowSize;
+
+    /** Non-whitespace bytes of the current line. */
+    private byte[] _line;
+
+    /** True until the first line has been processed. */
+    private boolean _first;
+
+    /** Channel to the output file. */
+    private FileChannel _out;
+
+    /** Output not yet written to _out. */
+    private ByteBuffer _buffer;
+
+}
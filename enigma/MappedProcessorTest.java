@@ -0,0 +1,105 @@
+package enigma;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+import static enigma.TestUtils.*;
+
+/** The suite of all JUnit tests for the MappedProcessor class.
+ *  @author Karina Patel
+ */
+public class MappedProcessorTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /* ***** TESTING UTILITIES ***** */
+
+    /** The line separator MappedProcessor uses. */
+    private static final String NL = System.lineSeparator();
+
+    /** Input mixing all three kinds of line ending, with the result of
+     *  each line in OUTPUT. */
+    private static final String INPUT =
+        "* B BETA I II III AAAA (AQ) (EP)\r\n"
+        + "Hello world\n"
+        + "\r"
+        + "* B BETA I II III AAAA (AQ) (EP)\r"
+        + "IHBDQ QMTQZ\r\n"
+        + "* B BETA III II I ZZZZ\n"
+        + "the quick brown fox jumps over the lazy dog";
+
+    /** The output for INPUT. */
+    private static final String OUTPUT =
+        "IHBDQ QMTQZ" + NL + NL + "HELLO WORLD" + NL
+        + "POMFW CERDE DGBAY RCVVO CRUVJ HVBXR UQVWZ" + NL;
+
+    /** Apply the settings line SETTINGS to M. */
+    private static void setUp(Machine M, String settings) {
+        SettingsLine line =
+            new SettingsLine(settings, M.numRotors(), M.alphabet());
+        M.insertRotors(line.rotors());
+        M.setRotors(line.positions());
+        M.setPlugboard(new Permutation(line.cycles(), M.alphabet()));
+    }
+
+    /** Return the output of processing TEXT a window of WINDOWSIZE bytes
+     *  at a time. */
+    private String process(String text, int windowSize) throws IOException {
+        File input = tempFile(text), output = tempFile("");
+        new MappedProcessor(new Machine(UPPER, 5, 3, R), UPPER,
+                            input.getPath(), output.getPath(),
+                            MappedProcessorTest::setUp, windowSize)
+            .process();
+        return new String(Files.readAllBytes(output.toPath()),
+                          StandardCharsets.UTF_8);
+    }
+
+    /* ***** TESTS ***** */
+
+    @Test
+    public void testProcess() throws IOException {
+        assertEquals(OUTPUT, process(INPUT, MappedProcessor.WINDOW_SIZE));
+    }
+
+    @Test
+    public void testWindowBoundaries() throws IOException {
+        String expected = process(INPUT, MappedProcessor.WINDOW_SIZE);
+        for (int size = 44; size <= INPUT.length() + 1; size += 1) {
+            assertEquals("window of " + size, expected, process(INPUT, size));
+        }
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testLineTooLong() throws IOException {
+        process(INPUT, 16);
+    }
+
+    @Test
+    public void testNonAscii() throws IOException {
+        Alphabet alpha = Alphabet.of("\u00C4\u00D6\u00DC\u03A9AZ");
+        ArrayList<Rotor> rotors = new ArrayList<>();
+        rotors.add(new Reflector("R", new Permutation(
+            "(\u00C4Z) (\u00D6\u03A9) (\u00DCA)", alpha)));
+        rotors.add(new MovingRotor("M", new Permutation(
+            "(\u00C4\u00D6\u00DC) (\u03A9AZ)", alpha), "A"));
+        File input = tempFile("* R M \u00C4\nAZ\n"), output = tempFile("");
+        try {
+            new MappedProcessor(new Machine(alpha, 2, 1, rotors), alpha,
+                                input.getPath(), output.getPath(),
+                                MappedProcessorTest::setUp);
+            fail("non-ASCII alphabet accepted");
+        } catch (EnigmaException excp) {
+            assertTrue(excp.getMessage().contains("ASCII"));
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+package enigma;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import static enigma.EnigmaException.*;
+
+/** A reader that splits a stream of input into settings lines and
+ *  message lines.  Each message line is stripped of whitespace and
+ *  converted to upper case as it is read, in a single pass into a
+ *  buffer that is reused from line to line, so that reading a message
+ *  creates no Strings.
+ *  @author Karina Patel
+ */
+class MessageReader {
+
+    /** Size of the block of characters read from the source at once. */
+    static final int BLOCK_SIZE = 1 << 16;
+
+    /** A reader taking its input from SOURCE. */
+    MessageReader(Reader source) {
+        _source = source;
+        _block = new char[BLOCK_SIZE];
+        _raw = new char[INITIAL_LINE_SIZE];
+        _message = new char[INITIAL_LINE_SIZE];
+    }
+
+    /** Close my source. */
+    void close() {
+        try {
+            _source.close();
+        } catch (IOException excp) {
+            throw error("could not close input: %s", excp.getMessage());
+        }
+    }
+
+    /** Read the next line, returning false if there is none. */
+    boolean nextLine() {
+        _rawLength = _messageLength = 0;
+        _settings = false;
+        if (!fill()) {
+            return false;
+        }
+        while (fill()) {
+            char c = _block[_next];
+            _next += 1;
+            if (c == '\n') {
+                return true;
+            } else if (c == '\r') {
+                if (fill() && _block[_next] == '\n') {
+                    _next += 1;
+                }
+                return true;
+            }
+            if (_rawLength == _raw.length) {
+                _raw = grow(_raw);
+                _message = grow(_message);
+            }
+            _raw[_rawLength] = c;
+            _rawLength += 1;
+            if (c == '*') {
+                _settings = true;
+            } else if (c > ' ') {
+                _message[_messageLength] = Character.toUpperCase(c);
+                _messageLength += 1;
+            }
+        }
+        return true;
+    }
+
+    /** Return true iff the current line is a settings line (one
+     *  containing '*'). */
+    boolean isSettings() {
+        return _settings;
+    }
+
+    /** Return true iff the current line consists only of whitespace. */
+    boolean isBlank() {
+        return !_settings && _messageLength == 0;
+    }
+
+    /** Return the current line with leading and trailing whitespace
+     *  removed. */
+    String line() {
+        return new String(_raw, 0, _rawLength).trim();
+    }
+
+    /** Return the buffer holding the non-whitespace characters of the
+     *  current line, upper-cased, starting at index 0.  The buffer is
+     *  overwritten by the next call to nextLine. */
+    char[] message() {
+        return _message;
+    }
+
+    /** Return the number of characters of message() in the current
+     *  line. */
+    int messageLength() {
+        return _messageLength;
+    }
+
+    /** Ensure that _block has an unread character, reading another block
+     *  from the source if needed.  Returns false at end of input. */
+    private boolean fill() {
+        try {
+            while (_next == _end) {
+                if (_end < 0) {
+                    return false;
+                }
+                _end = _source.read(_block);
+                _next = 0;
+                if (_end < 0) {
+                    _next = _end;
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException excp) {
+            throw error("could not read input: %s", excp.getMessage());
+        }
+    }
+
+    /** Return a copy of BUF with twice the capacity. */
+    private static char[] grow(char[] buf) {
+        char[] result = new char[2 * buf.length];
+        System.arraycopy(buf, 0, result, 0, buf.length);
+        return result;
+    }
+
+    /** Initial capacity of the line buffers. */
+    private static final int INITIAL_LINE_SIZE = 256;
+
+    /** Source of input. */
+    private final Reader _source;
+
+    /** The block of input being read. */
+    private final char[] _block;
+
+    /** Index of the next unread character of _block. */
+    private int _next;
+
+    /** Number of valid characters in _block, or -1 at end of input. */
+    private int _end;
+
+    /** The characters of the current line. */
+    private char[] _raw;
+
+    /** Number of characters in the current line. */
+    private int _rawLength;
+
+    /** The non-whitespace characters of the current line, upper-cased. */
+    private char[] _message;
+
+    /** Number of characters in _message. */
+    private int _messageLength;
+
+    /** True iff the current line contains '*'. */
+    private boolean _settings;
+
+}
@@ -0,0 +1,114 @@
+package enigma;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+import static enigma.MessageReader.BLOCK_SIZE;
+
+/** The suite of all JUnit tests for the MessageReader class.
+ *  @author Karina Patel
+ */
+public class MessageReaderTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /* ***** TESTING UTILITIES ***** */
+
+    /** Return the lines that a MessageReader finds in TEXT: each settings
+     *  line as "S:" followed by line(), and each other line as its
+     *  message. */
+    private List<String> read(String text) {
+        MessageReader input = new MessageReader(new StringReader(text));
+        ArrayList<String> result = new ArrayList<>();
+        while (input.nextLine()) {
+            if (input.isSettings()) {
+                result.add("S:" + input.line());
+            } else {
+                assertEquals(input.messageLength() == 0, input.isBlank());
+                result.add(new String(input.message(), 0,
+                                      input.messageLength()));
+            }
+        }
+        assertFalse(input.nextLine());
+        input.close();
+        return result;
+    }
+
+    /** Return a string of N copies of C. */
+    private String repeat(char c, int n) {
+        char[] result = new char[n];
+        Arrays.fill(result, c);
+        return new String(result);
+    }
+
+    /* ***** TESTS ***** */
+
+    @Test
+    public void testLineEndings() {
+        List<String> expected = Arrays.asList("AB", "CD", "EF", "GH");
+        assertEquals(expected, read("ab\ncd\nef\ngh\n"));
+        assertEquals(expected, read("ab\r\ncd\r\nef\r\ngh\r\n"));
+        assertEquals(expected, read("ab\rcd\ref\rgh\r"));
+        assertEquals(expected, read("ab\rcd\r\nef\ngh\r"));
+    }
+
+    @Test
+    public void testNoFinalNewline() {
+        assertEquals(Arrays.asList("AB", "CD"), read("ab\ncd"));
+        assertEquals(Arrays.asList("AB"), read("ab"));
+        assertEquals(Arrays.asList(), read(""));
+    }
+
+    @Test
+    public void testBlankLines() {
+        assertEquals(Arrays.asList("", "AB", "", "", "CD"),
+                     read("\nab\n \t\n\r\ncd\n"));
+    }
+
+    @Test
+    public void testStripAndUpperCase() {
+        assertEquals(Arrays.asList("HELLOWORLD"),
+                     read("  Hello \t wOrLd  \n"));
+    }
+
+    @Test
+    public void testSettings() {
+        assertEquals(Arrays.asList("S:* B BETA I II III AAAA (AQ)", "AB",
+                                   "S:x * y"),
+                     read("  * B BETA I II III AAAA (AQ)  \nab\n x * y\n"));
+        MessageReader input = new MessageReader(new StringReader("ab*\n"));
+        assertTrue(input.nextLine());
+        assertTrue(input.isSettings());
+        assertFalse(input.isBlank());
+    }
+
+    @Test
+    public void testCRLFAcrossBlocks() {
+        String first = repeat('a', BLOCK_SIZE - 1);
+        List<String> lines = read(first + "\r\nbc\n");
+        assertEquals(2, lines.size());
+        assertEquals(first.toUpperCase(), lines.get(0));
+        assertEquals("BC", lines.get(1));
+        lines = read(first + "\r" + "\r\nbc");
+        assertEquals(Arrays.asList(first.toUpperCase(), "", "BC"), lines);
+    }
+
+    @Test
+    public void testLongLines() {
+        String a = repeat('a', 3 * BLOCK_SIZE + 17);
+        String b = repeat('b', BLOCK_SIZE);
+        List<String> lines = read(a + "\n" + b + "\r\n\nz");
+        assertEquals(Arrays.asList(a.toUpperCase(), b.toUpperCase(), "",
+                                   "Z"),
+                     lines);
+    }
+
+}
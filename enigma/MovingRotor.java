@@ -1,5 +1,7 @@
 package enigma;
 
+import java.util.BitSet;
+
 import static enigma.EnigmaException.*;
 
 /** Class that represents a rotating rotor in the enigma machine.
@@ -16,27 +18,77 @@ class MovingRotor extends Rotor {
         super(name, perm);
         _permutation = perm;
         _notches = notches;
+        _notchMask = new BitSet(perm.size());
+        for (int i = 0; i < notches.length(); i++) {
+            char x = notches.charAt(i);
+            if (!perm.alphabet().contains(x)) {
+                throw error("notch %c of rotor %s is not in the alphabet",
+                            x, name);
+            }
+            _notchMask.set(perm.alphabet().toInt(x));
+        }
+        _toNotch = new int[perm.size()];
+        for (int s = 0; s < _toNotch.length; s++) {
+            int next = _notchMask.nextSetBit(s);
+            if (next < 0) {
+                next = _notchMask.nextSetBit(0) + _toNotch.length;
+            }
+            _toNotch[s] = _notchMask.isEmpty() ? -1 : next - s;
+        }
+        _notchesBefore = new int[perm.size() + 1];
+        for (int s = 0; s < perm.size(); s++) {
+            _notchesBefore[s + 1] =
+                _notchesBefore[s] + (_notchMask.get(s) ? 1 : 0);
+        }
+        _notchList = _notchMask.stream().toArray();
+    }
 
+    @Override
+    boolean rotates() {
+        return true;
+    }
 
+    @Override
+    String notches() {
+        return _notches;
+    }
 
+    @Override
+    boolean atNotch(int posn) {
+        return _notchMask.get(posn);
     }
 
     @Override
-    boolean rotates() {
-        return true;
+    int notchDistance(int posn) {
+        return _toNotch[posn];
     }
 
+
     @Override
-    boolean atNotch() {
-        for (int i = 0; i < _notches.length(); i++) {
-            char x = _notches.charAt(i);
-            if (x == alphabet().toChar(setting())) {
-                return true;
-            }
+    long notchesWithin(int posn, long t) {
+        int n = size(), s = posn;
+        int r = (int) (t % n);
+        long count = (t / n) * _notchList.length;
+        if (s + r <= n) {
+            return count + _notchesBefore[s + r] - _notchesBefore[s];
         }
-        return false;
+        return count + _notchesBefore[n] - _notchesBefore[s]
+            + _notchesBefore[s + r - n];
     }
 
+    @Override
+    long stepsToNotches(int posn, long d) {
+        int c = _notchList.length;
+        if (c == 0) {
+            return -1;
+        }
+        int n = size(), s = posn;
+        long cycles = (d - 1) / c;
+        int rest = (int) (d - cycles * c);
+        int target = _notchList[(_notchesBefore[s] + rest - 1) % c];
+        int dist = target >= s ? target - s : target - s + n;
+        return cycles * n + dist + 1;
+    }
 
     @Override
     void advance() {
@@ -47,6 +99,20 @@ class MovingRotor extends Rotor {
     /** Indicates the position of notches. */
     private String _notches;
 
+    /** The settings at which I am at a notch. */
+    private BitSet _notchMask;
+
+    /** The number of advances needed to bring me from each setting to a
+     *  notch (0 if already there), or -1 if I have no notches. */
+    private int[] _toNotch;
+
+    /** The number of notches at settings below each setting, with
+     *  _notchesBefore[size()] being the total. */
+    private int[] _notchesBefore;
+
+    /** The settings at which I am at a notch, in increasing order. */
+    private int[] _notchList;
+
     /** The permutation implemented by this rotor in its default setting. */
     private Permutation _permutation;
 
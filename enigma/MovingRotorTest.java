@@ -71,4 +71,78 @@ public class MovingRotorTest {
         checkRotor("Rotor I set", UPPER_STRING, NAVALZ_MAP.get("I"));
     }
 
+    @Test
+    public void checkNotches() {
+        setRotor("I", NAVALA, "QV");
+        assertFalse(rotor.atNotch());
+        assertEquals(16, rotor.notchDistance());
+        rotor.set('Q');
+        assertTrue(rotor.atNotch());
+        assertEquals(0, rotor.notchDistance());
+        rotor.advance();
+        assertFalse(rotor.atNotch());
+        assertEquals(4, rotor.notchDistance());
+        rotor.set('W');
+        assertEquals(20, rotor.notchDistance());
+        setRotor("I", NAVALA, "");
+        assertFalse(rotor.atNotch());
+        assertEquals(-1, rotor.notchDistance());
+    }
+
+    @Test
+    public void checkCompiledRotor() {
+        setRotor("I", NAVALA, "");
+        rotor.compile();
+        checkRotor("Rotor I compiled (A)", UPPER_STRING, NAVALA_MAP.get("I"));
+        rotor.advance();
+        checkRotor("Rotor I compiled advanced", UPPER_STRING,
+                   NAVALB_MAP.get("I"));
+        rotor.set(25);
+        checkRotor("Rotor I compiled set", UPPER_STRING, NAVALZ_MAP.get("I"));
+    }
+
+    @Test
+    public void checkRing() {
+        setRotor("I", NAVALA, "");
+        rotor.setRing(1);
+        rotor.set(1);
+        checkRotor("Rotor I ring B (B)", UPPER_STRING, NAVALA_MAP.get("I"));
+        rotor.set(0);
+        checkRotor("Rotor I ring B (A)", UPPER_STRING, NAVALZ_MAP.get("I"));
+        rotor.compile();
+        checkRotor("Rotor I compiled ring B (A)", UPPER_STRING,
+                   NAVALZ_MAP.get("I"));
+        rotor.setRing(0);
+        rotor.set(1);
+        checkRotor("Rotor I compiled ring A (B)", UPPER_STRING,
+                   NAVALB_MAP.get("I"));
+    }
+
+    @Test
+    public void checkSharedRingTables() throws InterruptedException {
+        setRotor("I", NAVALA, "");
+        rotor.compile();
+        Rotor[] copies = new Rotor[4];
+        Thread[] threads = new Thread[copies.length];
+        for (int k = 0; k < copies.length; k += 1) {
+            Rotor copy = copies[k] = rotor.copy();
+            threads[k] = new Thread(() -> {
+                for (int r = 0; r < copy.size(); r += 1) {
+                    copy.forwardTable(r);
+                    copy.backwardTable(r);
+                }
+            });
+            threads[k].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int r = 0; r < rotor.size(); r += 1) {
+            for (Rotor copy : copies) {
+                assertSame(rotor.forwardTable(r), copy.forwardTable(r));
+                assertSame(rotor.backwardTable(r), copy.backwardTable(r));
+            }
+        }
+    }
+
 }
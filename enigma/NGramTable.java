@@ -0,0 +1,312 @@
+package enigma;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static enigma.EnigmaException.*;
+
+/** The log probabilities of the n-grams (sequences of N characters) of
+ *  an alphabet, for scoring candidate decryptions.  The table is a flat
+ *  array indexed by the n-gram's characters read as the digits of a
+ *  number in base alphabet.size(), so that the index of each n-gram of a
+ *  text follows from the last one's with a remainder (dropping its first
+ *  character), a multiply and an add, and scoring a text allocates
+ *  nothing.
+ *
+ *  A table may be saved in a binary file and later mapped into memory
+ *  rather than read, so that a large table built once from a corpus
+ *  costs little to load.  The file holds, in order: MAGIC, VERSION, N,
+ *  the size of the alphabet, the length and modification time of the
+ *  corpus, the characters of the alphabet, padding to a multiple of 4
+ *  bytes, and the scores, all little-endian.
+ *  @author Karina Patel
+ */
+class NGramTable {
+
+    /** Largest number of entries in a table. */
+    static final int MAX_ENTRIES = 1 << 28;
+
+    /** Suffix added to a corpus's name and the length of the n-grams to
+     *  get the name of its saved table. */
+    static final String SUFFIX = "grams";
+
+    /** Marks a saved n-gram table. */
+    static final int MAGIC = 0x4e47726d;
+
+    /** Version of the file format. */
+    static final int VERSION = 1;
+
+    /** A table of N-grams of ALPHABET whose scores are SCORES, indexed as
+     *  described above. */
+    NGramTable(Alphabet alphabet, int n, float[] scores) {
+        this(alphabet, n, FloatBuffer.wrap(scores));
+    }
+
+    /** A table of N-grams of ALPHABET whose scores are the contents of
+     *  SCORES, from index 0 to its limit. */
+    NGramTable(Alphabet alphabet, int n, FloatBuffer scores) {
+        _alphabet = alphabet;
+        _n = n;
+        _entries = entries(alphabet, n);
+        _prefixes = _entries / alphabet.size();
+        if (scores.limit() != _entries) {
+            throw error("n-gram table has the wrong size");
+        }
+        _scores = scores;
+    }
+
+    /** Return the name of the file in which the table of N-grams from
+     *  the corpus named CORPUS is saved. */
+    static String savedName(String corpus, int n) {
+        return corpus + "." + n + SUFFIX;
+    }
+
+    /** Return the table of N-grams of ALPHABET in the corpus named
+     *  CORPUS, mapping it from its saved file if that is up to date, and
+     *  otherwise building it from the corpus and saving it. */
+    static NGramTable load(Alphabet alphabet, int n, String corpus) {
+        Path source = Paths.get(corpus);
+        long length, modified;
+        try {
+            length = Files.size(source);
+            modified = Files.getLastModifiedTime(source).toMillis();
+        } catch (IOException excp) {
+            throw error("could not open %s", corpus);
+        }
+        String saved = savedName(corpus, n);
+        NGramTable result = map(saved, alphabet, n, length, modified);
+        if (result == null) {
+            try (Reader in = new FileReader(corpus)) {
+                result = fromCorpus(alphabet, n, in);
+            } catch (IOException excp) {
+                throw error("could not read %s", corpus);
+            }
+            result.write(saved, length, modified);
+        }
+        return result;
+    }
+
+    /** Return the table saved in the file SAVED, mapped into memory, or
+     *  null if there is no such file, it cannot be read, or it does not
+     *  hold the N-grams of ALPHABET from a corpus of LENGTH bytes last
+     *  modified at MODIFIED. */
+    static NGramTable map(String saved, Alphabet alphabet, int n,
+                          long length, long modified) {
+        Path path = Paths.get(saved);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        int size = alphabet.size();
+        int header = headerSize(size);
+        try (FileChannel in = FileChannel.open(path,
+                                               StandardOpenOption.READ)) {
+            long scoreBytes = (long) entries(alphabet, n) * Float.BYTES;
+            if (in.size() != header + scoreBytes) {
+                return null;
+            }
+            ByteBuffer file = in.map(FileChannel.MapMode.READ_ONLY, 0,
+                                     in.size())
+                .order(ByteOrder.LITTLE_ENDIAN);
+            if (file.getInt() != MAGIC || file.getInt() != VERSION
+                || file.getInt() != n || file.getInt() != size
+                || file.getLong() != length || file.getLong() != modified) {
+                return null;
+            }
+            for (int i = 0; i < size; i += 1) {
+                if (file.getChar() != alphabet.toChar(i)) {
+                    return null;
+                }
+            }
+            file.position(header);
+            FloatBuffer scores =
+                file.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            return new NGramTable(alphabet, n, scores);
+        } catch (IOException | EnigmaException excp) {
+            return null;
+        }
+    }
+
+    /** Save me in the file SAVED, recording that I was built from a
+     *  corpus of LENGTH bytes last modified at MODIFIED.  As with
+     *  CompiledConfig.write, the table is written under a temporary name
+     *  and then moved into place, since other runs may have SAVED
+     *  mapped.  Failure to write is ignored, since the table can always
+     *  be built again. */
+    void write(String saved, long length, long modified) {
+        int size = _alphabet.size();
+        Path target = Paths.get(saved).toAbsolutePath();
+        Path temp = CompiledConfig.tempSibling(target);
+        try {
+            try (FileChannel out = FileChannel.open(
+                     temp, StandardOpenOption.CREATE_NEW,
+                     StandardOpenOption.WRITE)) {
+                ByteBuffer buffer =
+                    ByteBuffer.allocate(Math.max(WRITE_BUFFER_SIZE,
+                                                 headerSize(size)))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(_n)
+                    .putInt(size).putLong(length).putLong(modified);
+                for (int i = 0; i < size; i += 1) {
+                    buffer.putChar(_alphabet.toChar(i));
+                }
+                while (buffer.position() < headerSize(size)) {
+                    buffer.put((byte) 0);
+                }
+                for (int i = 0; i < _entries; i += 1) {
+                    if (buffer.remaining() < Float.BYTES) {
+                        drain(buffer, out);
+                    }
+                    buffer.putFloat(_scores.get(i));
+                }
+                drain(buffer, out);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+                       StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException excp) {
+            temp.toFile().delete();
+        }
+    }
+
+    /** Return a table of the N-grams of ALPHABET in the text read from
+     *  CORPUS, upper-cased, ignoring characters not in ALPHABET.  Each
+     *  n-gram scores the base-10 logarithm of its frequency among all
+     *  the n-grams of the corpus; one that does not occur scores as if
+     *  it occurred a hundredth of a time. */
+    static NGramTable fromCorpus(Alphabet alphabet, int n, Reader corpus) {
+        int entries = entries(alphabet, n);
+        int[] counts = new int[entries];
+        long total = 0;
+        int prefixes = entries / alphabet.size();
+        int index = 0, length = 0;
+        char[] buffer = new char[BUFFER_SIZE];
+        try {
+            for (int got = corpus.read(buffer); got >= 0;
+                 got = corpus.read(buffer)) {
+                for (int i = 0; i < got; i += 1) {
+                    char c = Character.toUpperCase(buffer[i]);
+                    if (!alphabet.contains(c)) {
+                        continue;
+                    }
+                    index = index % prefixes * alphabet.size()
+                        + alphabet.toInt(c);
+                    length += 1;
+                    if (length >= n) {
+                        counts[index] += 1;
+                        total += 1;
+                    }
+                }
+            }
+        } catch (IOException excp) {
+            throw error("could not read corpus: %s", excp.getMessage());
+        }
+        if (total == 0) {
+            throw error("corpus has no %d-grams", n);
+        }
+        float[] scores = new float[entries];
+        float floor = (float) Math.log10(FLOOR_COUNT / total);
+        for (int i = 0; i < entries; i += 1) {
+            scores[i] = counts[i] == 0 ? floor
+                : (float) Math.log10((double) counts[i] / total);
+        }
+        return new NGramTable(alphabet, n, scores);
+    }
+
+    /** Return my alphabet. */
+    Alphabet alphabet() {
+        return _alphabet;
+    }
+
+    /** Return the length of my n-grams. */
+    int n() {
+        return _n;
+    }
+
+    /** Return the score of the n-gram with index INDEX. */
+    float score(int index) {
+        return _scores.get(index);
+    }
+
+    /** Return the total score of the n-grams of the first LEN characters
+     *  of TEXT, given as indices into my alphabet. */
+    float score(int[] text, int len) {
+        int size = _alphabet.size();
+        int index = 0;
+        float result = 0;
+        for (int i = 0; i < len; i += 1) {
+            index = index % _prefixes * size + text[i];
+            if (i >= _n - 1) {
+                result += _scores.get(index);
+            }
+        }
+        return result;
+    }
+
+    /** Return the number of N-grams of ALPHABET, checking that it is no
+     *  more than MAX_ENTRIES. */
+    static int entries(Alphabet alphabet, int n) {
+        if (n < 1 || Math.pow(alphabet.size(), n) > MAX_ENTRIES) {
+            throw error("cannot make a table of %d-grams of %d characters",
+                        n, alphabet.size());
+        }
+        int result = 1;
+        for (int i = 0; i < n; i += 1) {
+            result *= alphabet.size();
+        }
+        return result;
+    }
+
+    /** Return the number of bytes before the scores in a saved table of
+     *  an alphabet of SIZE characters. */
+    private static int headerSize(int size) {
+        int result =
+            4 * Integer.BYTES + 2 * Long.BYTES + size * Character.BYTES;
+        return (result + Float.BYTES - 1) / Float.BYTES * Float.BYTES;
+    }
+
+    /** Write the contents of BUFFER to OUT and clear it. */
+    private static void drain(ByteBuffer buffer, FileChannel out)
+        throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /** Size of the buffer through which a table is saved. */
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    /** Size of the buffer in which a corpus is read. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Count given to n-grams that do not occur in a corpus. */
+    private static final double FLOOR_COUNT = 0.01;
+
+    /** My alphabet. */
+    private final Alphabet _alphabet;
+
+    /** The length of my n-grams. */
+    private final int _n;
+
+    /** The number of n-grams: alphabet size to the power _n. */
+    private final int _entries;
+
+    /** The number of (N-1)-grams, by which the index of the last n-gram
+     *  is reduced to drop its first character. */
+    private final int _prefixes;
+
+    /** The score of each n-gram, by index: an array wrapped as a buffer,
+     *  or a saved table mapped into memory. */
+    private final FloatBuffer _scores;
+
+}
@@ -0,0 +1,96 @@
+package enigma;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+import static enigma.TestUtils.*;
+
+/** The suite of all JUnit tests for the NGramTable class.
+ *  @author Karina Patel
+ */
+public class NGramTableTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    @Test
+    public void testFromCorpus() {
+        Alphabet ad = new CharacterRange('A', 'D');
+        NGramTable table =
+            NGramTable.fromCorpus(ad, 2, new StringReader("ab, AB;"));
+        assertEquals(16, NGramTable.entries(ad, 2));
+        assertEquals(Math.log10(2.0 / 3), table.score(1), 1e-6);
+        assertEquals(Math.log10(1.0 / 3), table.score(4), 1e-6);
+        assertEquals(Math.log10(0.01 / 3), table.score(15), 1e-6);
+        assertEquals(2 * table.score(1) + table.score(4),
+                     table.score(new int[] {0, 1, 0, 1, 3}, 4), 1e-6);
+    }
+
+    @Test
+    public void testSaved() throws IOException {
+        File corpus = File.createTempFile("corpus", ".txt");
+        File saved = new File(NGramTable.savedName(corpus.getPath(), 2));
+        corpus.deleteOnExit();
+        saved.deleteOnExit();
+        try (Writer out = new FileWriter(corpus)) {
+            out.write("the quick brown fox jumps over the lazy dog");
+        }
+        NGramTable built = NGramTable.load(UPPER, 2, corpus.getPath());
+        assertTrue(saved.isFile());
+        NGramTable mapped = NGramTable.map(saved.getPath(), UPPER, 2,
+                                           corpus.length(),
+                                           corpus.lastModified());
+        assertNotNull(mapped);
+        for (int i = 0; i < NGramTable.entries(UPPER, 2); i += 1) {
+            assertEquals(built.score(i), mapped.score(i), 0);
+        }
+        assertNull(NGramTable.map(saved.getPath(), UPPER, 2,
+                                  corpus.length() + 1,
+                                  corpus.lastModified()));
+        assertNull(NGramTable.map(saved.getPath(), UPPER, 3,
+                                  corpus.length(), corpus.lastModified()));
+    }
+
+    @Test
+    public void testRewriteWhileMapped() throws IOException {
+        File corpus = File.createTempFile("corpus", ".txt");
+        File saved = new File(NGramTable.savedName(corpus.getPath(), 2));
+        corpus.deleteOnExit();
+        saved.deleteOnExit();
+        try (Writer out = new FileWriter(corpus)) {
+            out.write("the quick brown fox jumps over the lazy dog");
+        }
+        NGramTable built = NGramTable.load(UPPER, 2, corpus.getPath());
+        NGramTable mapped = NGramTable.map(saved.getPath(), UPPER, 2,
+                                           corpus.length(),
+                                           corpus.lastModified());
+        assertNotNull(mapped);
+        NGramTable.fromCorpus(UPPER, 2, new StringReader("zzzz"))
+            .write(saved.getPath(), 4, 0);
+        for (int i = 0; i < NGramTable.entries(UPPER, 2); i += 1) {
+            assertEquals(built.score(i), mapped.score(i), 0);
+        }
+        assertNull(NGramTable.map(saved.getPath(), UPPER, 2,
+                                  corpus.length(), corpus.lastModified()));
+        assertNotNull(NGramTable.map(saved.getPath(), UPPER, 2, 4, 0));
+        File[] temps = saved.getParentFile().listFiles(
+            (dir, name) -> name.startsWith(saved.getName() + ".")
+                           && name.endsWith(".tmp"));
+        assertEquals(0, temps.length);
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testEmptyCorpus() {
+        NGramTable.fromCorpus(new CharacterRange('A', 'D'), 3,
+                              new StringReader("ab"));
+    }
+
+}
@@ -0,0 +1,103 @@
+package enigma;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static enigma.EnigmaException.*;
+
+/** Converts a single long message on several threads at once.  The
+ *  message is split into chunks; each chunk is converted by a copy of
+ *  the machine advanced to the position at which the chunk starts, so
+ *  the result is exactly what converting the whole message serially
+ *  would give.
+ *  @author Karina Patel
+ */
+class ParallelConverter {
+
+    /** Default number of characters converted by a single task. */
+    static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    /** A converter that runs tasks converting at most CHUNKSIZE
+     *  characters each on POOL. */
+    ParallelConverter(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw error("chunk size must be positive");
+        }
+        _pool = pool;
+        _chunkSize = chunkSize;
+    }
+
+    /** A converter using the common pool and the default chunk size. */
+    ParallelConverter() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /** Convert the LEN characters of IN starting at OFF with MACHINE,
+     *  storing the results at the same positions of OUT (which may be
+     *  IN), and leave MACHINE in the state that converting them serially
+     *  would. */
+    void convert(Machine machine, char[] in, int off, int len, char[] out) {
+        if (len <= _chunkSize) {
+            machine.convert(in, off, len, out);
+            return;
+        }
+        _pool.invoke(new Chunk(machine, in, out, off, off, off + len));
+        machine.advance(len);
+    }
+
+    /** Convert MSG with MACHINE as for Machine.convert(String). */
+    String convert(Machine machine, String msg) {
+        char[] chars = msg.toCharArray();
+        convert(machine, chars, 0, chars.length, chars);
+        return new String(chars);
+    }
+
+    /** The task of converting part of a message. */
+    private class Chunk extends RecursiveAction {
+
+        /** Convert characters LO .. HI-1 of IN into OUT, where the
+         *  message starts at index START and MACHINE is in the state it
+         *  had before converting it. */
+        Chunk(Machine machine, char[] in, char[] out,
+              int start, int lo, int hi) {
+            _machine = machine;
+            _in = in;
+            _out = out;
+            _start = start;
+            _lo = lo;
+            _hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (_hi - _lo <= _chunkSize) {
+                Machine m = _machine.fork();
+                m.advance(_lo - _start);
+                m.convert(_in, _lo, _hi - _lo, _out);
+            } else {
+                int mid = _lo + (_hi - _lo) / 2;
+                invokeAll(new Chunk(_machine, _in, _out, _start, _lo, mid),
+                          new Chunk(_machine, _in, _out, _start, mid, _hi));
+            }
+        }
+
+        /** The machine in its state at the start of the message. */
+        private final Machine _machine;
+
+        /** Source and destination of the message. */
+        private final char[] _in, _out;
+
+        /** Index of the start of the message in _in. */
+        private final int _start;
+
+        /** Bounds of my part of the message. */
+        private final int _lo, _hi;
+    }
+
+    /** Pool on which chunks are converted. */
+    private final ForkJoinPool _pool;
+
+    /** Maximum number of characters converted by a single task. */
+    private final int _chunkSize;
+
+}
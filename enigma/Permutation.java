@@ -1,5 +1,7 @@
 package enigma;
 
+import java.util.Arrays;
+
 import static enigma.EnigmaException.*;
 
 /** Represents a permutation of a range of integers starting at 0 corresponding
@@ -16,8 +18,9 @@ class Permutation {
     Permutation(String cycles, Alphabet alphabet) {
         _alphabet = alphabet;
         _isDerangement = true;
-        _forwardMapping = new char[_alphabet.size()];
-        _backwardMapping = new char[_alphabet.size()];
+        _forwardMapping = new int[_alphabet.size()];
+        _backwardMapping = new int[_alphabet.size()];
+        Arrays.fill(_forwardMapping, -1);
 
         String[] split = cycles.split("[\\s\\t\\n]+");
 
@@ -28,10 +31,9 @@ class Permutation {
 
 
         for (int i = 0; i < _forwardMapping.length; i++) {
-            if (_forwardMapping[i] == 0) {
-                _forwardMapping[i] = _alphabet.toChar(i);
-
-                _backwardMapping[i] = _alphabet.toChar(i);
+            if (_forwardMapping[i] < 0) {
+                _forwardMapping[i] = i;
+                _backwardMapping[i] = i;
                 _isDerangement = false;
 
             }
@@ -39,6 +41,29 @@ class Permutation {
     }
 
 
+    /** Set this Permutation to the one taking each index I of ALPHABET to
+     *  MAPPING[I], which must be a permutation of 0 .. ALPHABET.size()-1. */
+    Permutation(int[] mapping, Alphabet alphabet) {
+        _alphabet = alphabet;
+        _isDerangement = true;
+        if (mapping.length != _alphabet.size()) {
+            throw error("mapping does not match alphabet size");
+        }
+        _forwardMapping = mapping.clone();
+        _backwardMapping = new int[mapping.length];
+        Arrays.fill(_backwardMapping, -1);
+        for (int i = 0; i < mapping.length; i++) {
+            int to = mapping[i];
+            if (to < 0 || to >= mapping.length || _backwardMapping[to] >= 0) {
+                throw error("mapping is not a permutation");
+            }
+            _backwardMapping[to] = i;
+            if (to == i) {
+                _isDerangement = false;
+            }
+        }
+    }
+
     /** Add the cycle c0->c1->...->cm->c0 to the permutation, where CYCLE is
      *  c0c1...cm. */
     private void addCycle(String cycle) {
@@ -56,11 +81,11 @@ class Permutation {
         }
 
         for (int i = 0; i < cycleFormatted.length() - 1; i++) {
-            char from = cycleFormatted.charAt(i);
-            char to = cycleFormatted.charAt(i + 1);
+            int from = _alphabet.toInt(cycleFormatted.charAt(i));
+            int to = _alphabet.toInt(cycleFormatted.charAt(i + 1));
 
-            _forwardMapping[_alphabet.toInt(from)] = to;
-            _backwardMapping[_alphabet.toInt(to)] = from;
+            _forwardMapping[from] = to;
+            _backwardMapping[to] = from;
         }
     }
 
@@ -82,13 +107,25 @@ class Permutation {
     /** Return the result of applying this permutation to P modulo the
      *  alphabet size. */
     int permute(int p) {
-        return _alphabet.toInt(_forwardMapping[wrap(p)]);
+        return _forwardMapping[wrap(p)];
     }
 
     /** Return the result of applying the inverse of this permutation
      *  to  C modulo the alphabet size. */
     int invert(int c) {
-        return _alphabet.toInt(_backwardMapping[wrap(c)]);
+        return _backwardMapping[wrap(c)];
+    }
+
+    /** Return the result of applying this permutation to P, which must
+     *  already be in the range 0 .. size() - 1. */
+    int permuteUnchecked(int p) {
+        return _forwardMapping[p];
+    }
+
+    /** Return the result of applying the inverse of this permutation to
+     *  C, which must already be in the range 0 .. size() - 1. */
+    int invertUnchecked(int c) {
+        return _backwardMapping[c];
     }
 
     /** Return the result of applying this permutation to the index of P
@@ -113,17 +150,40 @@ class Permutation {
         return _isDerangement;
     }
 
+    /** Return my cycles of two or more characters in the form given to
+     *  the constructor, each starting with its earliest character in the
+     *  alphabet, and in order of those characters. */
+    String cycles() {
+        StringBuilder result = new StringBuilder();
+        boolean[] done = new boolean[size()];
+        for (int start = 0; start < size(); start += 1) {
+            if (done[start] || _forwardMapping[start] == start) {
+                continue;
+            }
+            if (result.length() > 0) {
+                result.append(' ');
+            }
+            result.append('(');
+            for (int p = start; !done[p]; p = _forwardMapping[p]) {
+                done[p] = true;
+                result.append(_alphabet.toChar(p));
+            }
+            result.append(')');
+        }
+        return result.toString();
+    }
+
     /** Alphabet of this permutation. */
     private Alphabet _alphabet;
 
     /** String cycle for this permutation. */
     private String _cycles;
 
-    /** Forward mapping of this permutation. */
-    private char [] _forwardMapping;
+    /** Forward mapping of this permutation, from index to index. */
+    private int [] _forwardMapping;
 
-    /** Reverse mapping for this permutation.  */
-    private char [] _backwardMapping;
+    /** Reverse mapping for this permutation, from index to index.  */
+    private int [] _backwardMapping;
 
     /** Whether the permutation is a derangement.  */
     private boolean _isDerangement;
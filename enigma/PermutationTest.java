@@ -40,6 +40,10 @@ public class PermutationTest {
                          ei, perm.permute(ci));
             assertEquals(msg(testId, "wrong inverse of %d", ei),
                          ci, perm.invert(ei));
+            assertEquals(msg(testId, "wrong unchecked translation of %d", ci),
+                         ei, perm.permuteUnchecked(ci));
+            assertEquals(msg(testId, "wrong unchecked inverse of %d", ei),
+                         ci, perm.invertUnchecked(ei));
         }
     }
 
@@ -50,6 +54,23 @@ public class PermutationTest {
         perm = new Permutation("", UPPER);
         checkPerm("identity", UPPER_STRING, UPPER_STRING);
     }
+    @Test
+    public void checkNavalA() {
+        perm = new Permutation(NAVALA.get("I"), UPPER);
+        checkPerm("naval I", UPPER_STRING, NAVALA_MAP.get("I"));
+    }
+
+    @Test
+    public void checkFromMapping() {
+        Permutation naval = new Permutation(NAVALA.get("I"), UPPER);
+        int[] mapping = new int[UPPER.size()];
+        for (int i = 0; i < mapping.length; i += 1) {
+            mapping[i] = naval.permute(i);
+        }
+        perm = new Permutation(mapping, UPPER);
+        checkPerm("naval I from mapping", UPPER_STRING, NAVALA_MAP.get("I"));
+    }
+
     @Test
     public void testPerm() {
         Permutation p = new Permutation(NAVALA.get("I"), UPPER);
@@ -82,4 +103,13 @@ public class PermutationTest {
         assertEquals(p3.permute('G'), 'G');
     }
 
+    @Test
+    public void testCycles() {
+        Permutation p = new Permutation("(PNH) (XW) (JC) (E)", UPPER);
+        assertEquals("(CJ) (HPN) (WX)", p.cycles());
+        assertEquals(p.cycles(),
+                     new Permutation(p.cycles(), UPPER).cycles());
+        assertEquals("", new Permutation("", UPPER).cycles());
+    }
+
 }
@@ -5,7 +5,7 @@ import static enigma.EnigmaException.*;
 /** Superclass that represents a rotor in the enigma machine.
  *  @author Karina Patel
  */
-class Rotor {
+class Rotor implements Cloneable {
 
     /** A rotor named NAME whose permutation is given by PERM. */
     Rotor(String name, Permutation perm) {
@@ -61,29 +61,174 @@ class Rotor {
         _setting = cposnInt;
     }
 
+    /** Return my ring setting: the offset of my wiring from the setting
+     *  shown, which is also the one my notches refer to. */
+    int ring() {
+        return _ring;
+    }
+
+    /** Set ring() to RING. */
+    void setRing(int ring) {
+        _ring = _permutation.wrap(ring);
+        if (_forwardTable != null) {
+            _forwardRing = forwardTable(_ring);
+            _backwardRing = backwardTable(_ring);
+        }
+    }
+
+    /** Build my per-setting conversion tables, if I have not already
+     *  done so.  Row S of each table gives my conversion of every input
+     *  when I am at setting S, so that a compiled rotor converts with a
+     *  single array access. */
+    synchronized void compile() {
+        if (_forwardTable != null) {
+            return;
+        }
+        int n = size();
+        int[][] forward = new int[n][n];
+        int[][] backward = new int[n][n];
+        for (int s = 0; s < n; s += 1) {
+            for (int p = 0; p < n; p += 1) {
+                int out = _permutation.permuteUnchecked((s + p) % n) - s;
+                if (out < 0) {
+                    out += n;
+                }
+                forward[s][p] = out;
+                backward[s][out] = p;
+            }
+        }
+        _forwardTable = forward;
+        _backwardTable = backward;
+        _forwardRings = new int[n][][];
+        _backwardRings = new int[n][][];
+        _forwardRings[0] = forward;
+        _backwardRings[0] = backward;
+        _forwardRing = forwardTable(_ring);
+        _backwardRing = backwardTable(_ring);
+    }
+
+    /** Return my forward conversion table, indexed first by setting and
+     *  then by input, compiling it if necessary. */
+    int[][] forwardTable() {
+        compile();
+        return _forwardTable;
+    }
+
+    /** Return my backward conversion table, indexed first by setting and
+     *  then by input, compiling it if necessary. */
+    int[][] backwardTable() {
+        compile();
+        return _backwardTable;
+    }
+
+    /** Return my forward conversion table for ring setting RING, indexed
+     *  first by the setting shown and then by input.  Its rows are those
+     *  of forwardTable(), rotated by RING, so that a ring setting costs
+     *  nothing per character. */
+    int[][] forwardTable(int ring) {
+        compile();
+        synchronized (_forwardRings) {
+            if (_forwardRings[ring] == null) {
+                _forwardRings[ring] = rotate(_forwardTable, ring);
+            }
+            return _forwardRings[ring];
+        }
+    }
+
+    /** Return my backward conversion table for ring setting RING, as for
+     *  forwardTable(RING). */
+    int[][] backwardTable(int ring) {
+        compile();
+        synchronized (_backwardRings) {
+            if (_backwardRings[ring] == null) {
+                _backwardRings[ring] = rotate(_backwardTable, ring);
+            }
+            return _backwardRings[ring];
+        }
+    }
+
+    /** Return the rows of TABLE rotated so that row S of the result is
+     *  row S - RING (modulo the size of TABLE) of TABLE. */
+    private static int[][] rotate(int[][] table, int ring) {
+        int n = table.length;
+        int[][] result = new int[n][];
+        for (int s = 0; s < n; s += 1) {
+            result[s] = table[(s - ring + n) % n];
+        }
+        return result;
+    }
+
     /** Return the conversion of P (an integer in the range 0..size()-1)
      *  according to my permutation. */
     int convertForward(int p) {
-        int convert = _permutation.permute(_permutation.wrap(_setting + p));
-        int convertForward = _permutation.wrap(convert - _setting);
+        if (_forwardTable != null) {
+            return _forwardRing[_setting][p];
+        }
+        int offset = _setting - _ring;
+        int convert = _permutation.permuteUnchecked(
+                _permutation.wrap(offset + p));
+        int convertForward = _permutation.wrap(convert - offset);
         return convertForward;
     }
 
     /** Return the conversion of E (an integer in the range 0..size()-1)
      *  according to the inverse of my permutation. */
     int convertBackward(int e) {
-
-        int convert = _permutation.invert(_permutation.wrap(e + _setting));
-        int convertBackward = _permutation.wrap(convert - _setting);
+        if (_backwardTable != null) {
+            return _backwardRing[_setting][e];
+        }
+        int offset = _setting - _ring;
+        int convert = _permutation.invertUnchecked(
+                _permutation.wrap(e + offset));
+        int convertBackward = _permutation.wrap(convert - offset);
         return convertBackward;
     }
 
+    /** Returns the characters at which I have notches. */
+    String notches() {
+        return "";
+    }
+
     /** Returns true iff I am positioned to allow the rotor to my left
      *  to advance. */
-    boolean atNotch() {
+    final boolean atNotch() {
+        return atNotch(_setting);
+    }
+
+    /** Returns true iff I would allow the rotor to my left to advance
+     *  at setting POSN. */
+    boolean atNotch(int posn) {
         return false;
     }
 
+    /** Returns the number of times I must advance before atNotch() is
+     *  true (0 if it is true now), or -1 if that never happens. */
+    final int notchDistance() {
+        return notchDistance(_setting);
+    }
+
+    /** Returns the number of times I must advance from setting POSN
+     *  before I am at a notch (0 if I already am), or -1 if that never
+     *  happens. */
+    int notchDistance(int posn) {
+        return -1;
+    }
+
+    /** Returns how many of the next T keystrokes would find me at a notch
+     *  if I started at setting POSN and advanced once on every
+     *  keystroke. */
+    long notchesWithin(int posn, long t) {
+        return 0;
+    }
+
+    /** Returns the number of keystrokes, starting at setting POSN and
+     *  advancing me once on each, after which exactly D (>= 1) of them
+     *  have found me at a notch (the last of them being one of those),
+     *  or -1 if I have no notches. */
+    long stepsToNotches(int posn, long d) {
+        return -1;
+    }
+
     /** Returns true iff I am positioned to allow the rotor to my left
      *  to advance. */
     boolean next() {
@@ -95,6 +240,18 @@ class Rotor {
     }
 
 
+    /** Return a rotor just like me, at my current setting and ring
+     *  setting, that can be moved independently of me.  If I have been
+     *  compiled, the copy shares my tables, including those built later
+     *  for other ring settings. */
+    Rotor copy() {
+        try {
+            return (Rotor) clone();
+        } catch (CloneNotSupportedException excp) {
+            throw new AssertionError(excp);
+        }
+    }
+
     @Override
     public String toString() {
         return "Rotor " + _name;
@@ -109,7 +266,25 @@ class Rotor {
     /** The current setting of the rotor. */
     private int _setting;
 
+    /** Forward conversion of each input at each setting, or null if I
+     *  have not been compiled. */
+    private int[][] _forwardTable;
+
+    /** Backward conversion of each input at each setting, or null if I
+     *  have not been compiled. */
+    private int[][] _backwardTable;
+
+    /** My ring setting. */
+    private int _ring;
 
+    /** forwardTable(R) and backwardTable(R) for each ring setting R for
+     *  which they have been requested, or null if I have not been
+     *  compiled.  These arrays are shared with my copies, so each is
+     *  used as the lock for filling it in. */
+    private int[][][] _forwardRings, _backwardRings;
 
+    /** forwardTable(ring()) and backwardTable(ring()), or null if I have
+     *  not been compiled. */
+    private int[][] _forwardRing, _backwardRing;
 
 }
@@ -0,0 +1,159 @@
+package enigma;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.CharArrayWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static enigma.EnigmaException.*;
+
+/** A long-running server that keeps one or more configurations loaded
+ *  and translates messages sent to it over a local TCP socket, so that
+ *  many small jobs do not each pay for starting a JVM and parsing a
+ *  configuration.
+ *
+ *  Each connection carries any number of requests, each answered in
+ *  turn.  A request is a frame consisting of a 4-byte big-endian length
+ *  followed by that many bytes of UTF-8 text.  The first line of the text
+ *  names one of the configurations the server was started with; the rest
+ *  is input in the same form as Main reads (a settings line followed by
+ *  messages).  The response is a single byte that is 1 if the request
+ *  succeeded and 0 if not, followed by a frame holding Main's output
+ *  for that input, which after a failure ends with the error message.
+ *  @author Karina Patel
+ */
+class Server {
+
+    /** Largest request accepted, in bytes. */
+    static final int MAX_FRAME = 1 << 28;
+
+    /** Size of the buffer first allocated for a request. */
+    private static final int INITIAL_FRAME_SIZE = 1 << 16;
+
+    /** A server that will listen on PORT of the loopback interface. */
+    Server(int port) {
+        _port = port;
+        _configs = new HashMap<>();
+    }
+
+    /** Make TRANSLATOR available to requests naming NAME. */
+    void add(String name, Main translator) {
+        _configs.put(name, translator);
+    }
+
+    /** Accept and serve connections until the process is killed. */
+    void serve() {
+        try (ServerSocket listener =
+                 new ServerSocket(_port, 0, InetAddress.getLoopbackAddress())) {
+            serve(listener);
+        } catch (IOException excp) {
+            throw error("server failed: %s", excp.getMessage());
+        }
+    }
+
+    /** Accept and serve connections on LISTENER until it is closed. */
+    void serve(ServerSocket listener) {
+        ExecutorService workers = Executors.newCachedThreadPool();
+        try {
+            while (true) {
+                Socket client = listener.accept();
+                workers.execute(() -> handle(client));
+            }
+        } catch (IOException excp) {
+            if (!listener.isClosed()) {
+                throw error("server failed: %s", excp.getMessage());
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /** Answer the requests arriving on CLIENT until it closes. */
+    private void handle(Socket client) {
+        try (Socket socket = client;
+             DataInputStream in = new DataInputStream(
+                     new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(socket.getOutputStream()))) {
+            while (true) {
+                int len;
+                try {
+                    len = in.readInt();
+                } catch (EOFException excp) {
+                    return;
+                }
+                if (len < 0 || len > MAX_FRAME) {
+                    return;
+                }
+                byte[] request = readFrame(in, len);
+                respond(new String(request, StandardCharsets.UTF_8), out);
+                out.flush();
+            }
+        } catch (IOException excp) {
+            return;
+        }
+    }
+
+    /** Return the LEN bytes of a request read from IN.  The buffer grows
+     *  only as bytes arrive, so a large length costs no memory until the
+     *  client actually sends that much. */
+    private static byte[] readFrame(DataInputStream in, int len)
+        throws IOException {
+        byte[] result = new byte[Math.min(len, INITIAL_FRAME_SIZE)];
+        int n = 0;
+        while (n < len) {
+            if (n == result.length) {
+                result = Arrays.copyOf(result, (int) Math.min(len, 2L * n));
+            }
+            int k = in.read(result, n, result.length - n);
+            if (k < 0) {
+                throw new EOFException();
+            }
+            n += k;
+        }
+        return result;
+    }
+
+    /** Translate REQUEST and write the response to OUT. */
+    private void respond(String request, DataOutputStream out)
+        throws IOException {
+        int eol = request.indexOf('\n');
+        String name = (eol < 0 ? request : request.substring(0, eol)).trim();
+        String input = eol < 0 ? "" : request.substring(eol + 1);
+        CharArrayWriter text = new CharArrayWriter();
+        boolean ok = true;
+        try {
+            Main translator = _configs.get(name);
+            if (translator == null) {
+                throw error("unknown configuration %s", name);
+            }
+            translator.translate(new StringReader(input), text);
+        } catch (EnigmaException excp) {
+            ok = false;
+            text.append(String.format("Error: %s%n", excp.getMessage()));
+        }
+        byte[] response = text.toString().getBytes(StandardCharsets.UTF_8);
+        out.writeBoolean(ok);
+        out.writeInt(response.length);
+        out.write(response);
+    }
+
+    /** Port on which I listen. */
+    private final int _port;
+
+    /** The loaded configurations, by the names given to the server. */
+    private final HashMap<String, Main> _configs;
+
+}
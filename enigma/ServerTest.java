@@ -0,0 +1,135 @@
+package enigma;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+import static enigma.TestUtils.*;
+
+/** The suite of all JUnit tests for the Server class.
+ *  @author Karina Patel
+ */
+public class ServerTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /* ***** TESTING UTILITIES ***** */
+
+    /** The line separator used in responses. */
+    private static final String NL = System.lineSeparator();
+
+    /** Return the socket of a newly started server with CONFIG under
+     *  the name "default".  The server stops when the socket is
+     *  closed. */
+    private ServerSocket start() throws IOException {
+        File config = tempFile(CONFIG);
+        Server server = new Server(0);
+        server.add("default", new Main(config.getPath()));
+        ServerSocket listener =
+            new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(() -> server.serve(listener));
+        thread.setDaemon(true);
+        thread.start();
+        return listener;
+    }
+
+    /** Return a connection to the server listening on LISTENER. */
+    private Socket connect(ServerSocket listener) throws IOException {
+        return new Socket(listener.getInetAddress(), listener.getLocalPort());
+    }
+
+    /** Send REQUEST on OUT as a frame. */
+    private void send(DataOutputStream out, String request)
+        throws IOException {
+        byte[] bytes = request.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.flush();
+    }
+
+    /** Read a response from IN, checking that its status byte is OK, and
+     *  return its text. */
+    private String receive(DataInputStream in, boolean ok)
+        throws IOException {
+        assertEquals(ok, in.readBoolean());
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /* ***** TESTS ***** */
+
+    @Test
+    public void testRequests() throws IOException {
+        try (ServerSocket listener = start();
+             Socket socket = connect(listener);
+             DataInputStream in =
+                 new DataInputStream(socket.getInputStream());
+             DataOutputStream out =
+                 new DataOutputStream(socket.getOutputStream())) {
+            send(out, "default\n* B BETA I II III AAAA (AQ) (EP)\n"
+                 + "Hello world\n");
+            assertEquals("IHBDQ QMTQZ" + NL, receive(in, true));
+            send(out, "default\r\n* B BETA I II III AAAA (AQ) (EP)\n"
+                 + "IHBDQ QMTQZ\n\n");
+            assertEquals("HELLO WORLD" + NL + NL, receive(in, true));
+            char[] longLine = new char[200000];
+            Arrays.fill(longLine, 'A');
+            send(out, "default\n* B BETA I II III AAAA\n"
+                 + new String(longLine) + "\n");
+            assertEquals(200000 + 39999 + NL.length(),
+                         receive(in, true).length());
+        }
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        try (ServerSocket listener = start();
+             Socket socket = connect(listener);
+             DataInputStream in =
+                 new DataInputStream(socket.getInputStream());
+             DataOutputStream out =
+                 new DataOutputStream(socket.getOutputStream())) {
+            send(out, "default\n* B BETA I II III AAAA (AQ) (EP)\n"
+                 + "Hello world\n* B BETA I II IV AAAA\nHello\n");
+            assertEquals("IHBDQ QMTQZ" + NL + "Error: rotor IV not found"
+                         + NL, receive(in, false));
+            send(out, "nonesuch\n* B BETA I II III AAAA\nHello\n");
+            assertEquals("Error: unknown configuration nonesuch" + NL,
+                         receive(in, false));
+            send(out, "default\n* B BETA I II III AAAA (AQ) (EP)\n"
+                 + "Hello world\n");
+            assertEquals("IHBDQ QMTQZ" + NL, receive(in, true));
+        }
+    }
+
+    @Test
+    public void testFrameTooLarge() throws IOException {
+        try (ServerSocket listener = start()) {
+            for (int len : new int[] {Server.MAX_FRAME + 1, -1}) {
+                try (Socket socket = connect(listener);
+                     DataInputStream in =
+                         new DataInputStream(socket.getInputStream());
+                     DataOutputStream out =
+                         new DataOutputStream(socket.getOutputStream())) {
+                    out.writeInt(len);
+                    out.flush();
+                    assertEquals(-1, in.read());
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+package enigma;
+
+import java.util.Arrays;
+
+import static enigma.EnigmaException.*;
+
+/** The parts of a settings line: an asterisk, the names of the rotors to
+ *  insert, the initial positions of the rotors, optionally their ring
+ *  settings, and the cycles of the plugboard.  The line is divided into
+ *  tokens in a single pass that records only their bounds, and the
+ *  tokens are then checked in place, without splitting the line or
+ *  matching it against patterns.  The token after the positions is
+ *  taken as ring settings only if it has the same length as the
+ *  positions and consists of characters of the alphabet; otherwise, as
+ *  before rings were supported, scanning the plugboard starts there.
+ *  Scanning the plugboard stops at the first token that is not a cycle,
+ *  and anything after it is ignored.
+ *  @author Karina Patel
+ */
+class SettingsLine {
+
+    /** The settings line LINE for a machine with NUMROTORS rotor
+     *  slots and alphabet ALPHABET. */
+    SettingsLine(String line, int numRotors, Alphabet alphabet) {
+        _line = line.toUpperCase();
+        _bounds = new int[2 * (numRotors + INITIAL_CYCLES)];
+        int count = 0;
+        for (int k = 0, n = _line.length(); k < n; ) {
+            while (k < n && _line.charAt(k) <= ' ') {
+                k += 1;
+            }
+            if (k == n) {
+                break;
+            }
+            if (2 * count == _bounds.length) {
+                _bounds = Arrays.copyOf(_bounds, 2 * _bounds.length);
+            }
+            _bounds[2 * count] = k;
+            while (k < n && _line.charAt(k) > ' ') {
+                k += 1;
+            }
+            _bounds[2 * count + 1] = k;
+            count += 1;
+        }
+
+        if (count == 0) {
+            throw error("No setting detected.");
+        }
+        if (count - 1 < numRotors) {
+            throw error("Length of settings string, "
+                        + "doesn't match number of settable rotors");
+        }
+        if (length(0) != 1 || _line.charAt(start(0)) != '*') {
+            throw error("No valid setting detected. Must start with a *.");
+        }
+        if (count < numRotors + 2) {
+            throw error("No valid setting detected. Too few elements.");
+        }
+
+        _rotors = new String[numRotors];
+        for (int i = 0; i < numRotors; i += 1) {
+            for (int k = start(i + 1); k < end(i + 1); k += 1) {
+                char c = _line.charAt(k);
+                if (c == '(' || c == ')') {
+                    throw error("Improperly formatted rotor names "
+                                + "in settings.");
+                }
+            }
+            _rotors[i] = token(i + 1);
+        }
+
+        int posn = numRotors + 1;
+        for (int k = start(posn); k < end(posn); k += 1) {
+            if (!isWordChar(_line.charAt(k))) {
+                throw error("Improperly formatted rotor setting "
+                            + "in settings.");
+            }
+        }
+        _positions = token(posn);
+
+        int t = posn + 1;
+        if (t < count && isRings(t, length(posn), alphabet)) {
+            _rings = token(t);
+            t += 1;
+        } else {
+            _rings = null;
+        }
+
+        StringBuilder cycles = new StringBuilder();
+        while (t < count && isCycles(t)) {
+            for (int k = start(t); k < end(t); k += 1) {
+                char c = _line.charAt(k);
+                if (c == '(' && k > start(t) && _line.charAt(k - 1) == ')') {
+                    cycles.append(' ');
+                }
+                cycles.append(c);
+            }
+            cycles.append(' ');
+            t += 1;
+        }
+        _cycles = cycles.toString();
+    }
+
+    /** Return the names of the rotors, reflector first. */
+    String[] rotors() {
+        return _rotors;
+    }
+
+    /** Return the initial positions of the non-reflector rotors, leftmost
+     *  first. */
+    String positions() {
+        return _positions;
+    }
+
+    /** Return the ring settings of the non-reflector rotors, leftmost
+     *  first, or null if the line gives none. */
+    String rings() {
+        return _rings;
+    }
+
+    /** Return the plugboard cycles, in the form Permutation expects. */
+    String cycles() {
+        return _cycles;
+    }
+
+    /** Return the index in _line of the start of token T. */
+    private int start(int t) {
+        return _bounds[2 * t];
+    }
+
+    /** Return the index in _line just past the end of token T. */
+    private int end(int t) {
+        return _bounds[2 * t + 1];
+    }
+
+    /** Return the length of token T. */
+    private int length(int t) {
+        return end(t) - start(t);
+    }
+
+    /** Return token T. */
+    private String token(int t) {
+        return _line.substring(start(t), end(t));
+    }
+
+    /** Return true iff token T has length LEN and consists of characters
+     *  of ALPHABET. */
+    private boolean isRings(int t, int len, Alphabet alphabet) {
+        if (length(t) != len) {
+            return false;
+        }
+        for (int k = start(t); k < end(t); k += 1) {
+            if (!alphabet.contains(_line.charAt(k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Return true iff token T is a parenthesized, nonempty sequence of
+     *  word characters and parentheses. */
+    private boolean isCycles(int t) {
+        if (length(t) < 3 || _line.charAt(start(t)) != '('
+            || _line.charAt(end(t) - 1) != ')') {
+            return false;
+        }
+        for (int k = start(t) + 1; k < end(t) - 1; k += 1) {
+            char c = _line.charAt(k);
+            if (c != '(' && c != ')' && !isWordChar(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Return true iff C is a letter, digit, or underscore. */
+    private static boolean isWordChar(char c) {
+        return c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z'
+            || c >= '0' && c <= '9' || c == '_';
+    }
+
+    /** Number of plugboard cycles for which room is made initially. */
+    private static final int INITIAL_CYCLES = 16;
+
+    /** The settings line, upper-cased. */
+    private final String _line;
+
+    /** The bounds of the tokens of _line: token T occupies indices
+     *  _bounds[2T] .. _bounds[2T+1]-1. */
+    private int[] _bounds;
+
+    /** The rotor names. */
+    private final String[] _rotors;
+
+    /** The rotor positions. */
+    private final String _positions;
+
+    /** The ring settings, or null. */
+    private final String _rings;
+
+    /** The plugboard cycles. */
+    private final String _cycles;
+
+}
@@ -0,0 +1,54 @@
+package enigma;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+import static enigma.TestUtils.*;
+
+/** The suite of all JUnit tests for the SettingsLine class.
+ *  @author Karina Patel
+ */
+public class SettingsLineTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    @Test
+    public void testParts() {
+        SettingsLine line =
+            new SettingsLine("* B Beta III IV I axle (HQ) (EX)(IP)", 5, UPPER);
+        assertArrayEquals(new String[] {"B", "BETA", "III", "IV", "I"},
+                          line.rotors());
+        assertEquals("AXLE", line.positions());
+        assertNull(line.rings());
+        assertEquals("(HQ) (EX) (IP) ", line.cycles());
+    }
+
+    @Test
+    public void testRings() {
+        SettingsLine line =
+            new SettingsLine("* B BETA III IV I AXLE BBCD (HQ)", 5, UPPER);
+        assertEquals("BBCD", line.rings());
+        assertEquals("(HQ) ", line.cycles());
+    }
+
+    @Test
+    public void testTrailingTokenIgnored() {
+        SettingsLine line =
+            new SettingsLine("* B BETA III IV I AXLE IGNORED (HQ)", 5, UPPER);
+        assertNull(line.rings());
+        assertEquals("", line.cycles());
+        line = new SettingsLine("* B BETA III IV I AXLE AB1D (HQ)", 5, UPPER);
+        assertNull(line.rings());
+        assertEquals("", line.cycles());
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testTooFewRotors() {
+        new SettingsLine("* B BETA III IV", 5, UPPER);
+    }
+
+}
@@ -1,5 +1,9 @@
 package enigma;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.ArrayList;
 
@@ -172,4 +176,41 @@ class TestUtils {
                         UPPER), "J"));
 
     }
+
+    /** Return a machine over the rotors R with NUMROTORS slots and PAWLS
+     *  pawls, with the rotors named ROTORS inserted at SETTING and the
+     *  plugboard CYCLES. */
+    static Machine machine(int numRotors, int pawls, String[] rotors,
+                           String setting, String cycles) {
+        Machine result = new Machine(UPPER, numRotors, pawls, R);
+        result.insertRotors(rotors);
+        result.setRotors(setting);
+        result.setPlugboard(new Permutation(cycles, UPPER));
+        return result;
+    }
+
+    /** Return a machine with more slots for non-moving rotors than R
+     *  has such rotors, so that no order of the rotors in R fits it. */
+    static Machine noRotorOrders() {
+        return new Machine(UPPER, 5, 2, R);
+    }
+
+    /** A configuration file with the rotors B, Beta, I, II and III. */
+    static final String CONFIG =
+        "A-Z\n 5 3\n"
+        + " I MQ      (AELTPHQXRU) (BKNW) (CMOY) (DFG) (IV) (JZ) (S)\n"
+        + " II ME     (FIXVYOMW) (CDKLHUP) (ESZ) (BJ) (GR) (NT) (A) (Q)\n"
+        + " III MV    (ABDHPEJT) (CFLVMZOYQIRWUKXSG) (N)\n"
+        + " Beta N    (ALBEVFCYODJWUGNMQTZSKPR) (HIX)\n"
+        + " B R       (AE) (BN) (CK) (DQ) (FU) (GY) (HW) (IJ) (LO) (MP)\n"
+        + "           (RX) (SZ) (TV)\n";
+
+    /** Return a new temporary file, deleted on exit, containing TEXT in
+     *  UTF-8. */
+    static File tempFile(String text) throws IOException {
+        File result = File.createTempFile("enigma", ".txt");
+        result.deleteOnExit();
+        Files.write(result.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return result;
+    }
 }
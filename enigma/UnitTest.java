@@ -10,7 +10,14 @@ public class UnitTest {
     /** Run the JUnit tests in this package. Add xxxTest.class entries to
      *  the arguments of runClasses to run other JUnit tests. */
     public static void main(String[] ignored) {
-        textui.runClasses(PermutationTest.class, MovingRotorTest.class);
+        textui.runClasses(PermutationTest.class, MovingRotorTest.class,
+                          MachineTest.class, SettingsLineTest.class,
+                          KeySearchTest.class, BombeTest.class,
+                          HillClimberTest.class, NGramTableTest.class,
+                          AlphabetTest.class, MainTest.class,
+                          MessageReaderTest.class, GroupWriterTest.class,
+                          MappedProcessorTest.class, ServerTest.class,
+                          CompiledConfigTest.class);
     }
 
 }